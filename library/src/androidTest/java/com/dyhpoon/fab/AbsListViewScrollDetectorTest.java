@@ -0,0 +1,157 @@
+package com.dyhpoon.fab;
+
+import android.test.AndroidTestCase;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+import android.widget.BaseAdapter;
+import android.widget.ListView;
+
+public class AbsListViewScrollDetectorTest extends AndroidTestCase {
+    private static final int ROW_COUNT = 100;
+    private static final int LIST_HEIGHT = 500;
+    private static final int STEP = 7;
+
+    private ListView mListView;
+    private RowAdapter mAdapter;
+    private RecordingTarget mTarget;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mAdapter = new RowAdapter();
+        mTarget = new RecordingTarget();
+        mListView = new ListView(getContext());
+        mListView.setDividerHeight(0);
+        mListView.setAdapter(mAdapter);
+        mListView.setOnScrollListener(new AbsListViewScrollDetector(mTarget));
+        layout();
+    }
+
+    public void testScrollOffsetFollowsRowsOfDifferentHeights() {
+        int end = getContentHeight() - LIST_HEIGHT;
+
+        for (int y = STEP; y <= end; y += STEP) {
+            int before = mTarget.mScrollY;
+            scrollTo(y);
+
+            assertTrue("Scrolling down reported " + (mTarget.mScrollY - before) + " at " + y,
+                    mTarget.mScrollY > before);
+            assertEquals(y, mTarget.mScrollY);
+        }
+        for (int y = end - STEP; y >= 0; y -= STEP) {
+            int before = mTarget.mScrollY;
+            scrollTo(y);
+
+            assertTrue("Scrolling up reported " + (mTarget.mScrollY - before) + " at " + y,
+                    mTarget.mScrollY < before);
+            assertEquals(y, mTarget.mScrollY);
+        }
+        assertTrue("The rows were never recycled", mAdapter.mRecycledCount > 0);
+    }
+
+    public void testRowsSkippedByAFlingKeepTheDirection() {
+        // Jumps much further than one screen, like a fast fling between two scroll events
+        for (int row = 10; row < ROW_COUNT - 10; row += 10) {
+            int before = mTarget.mScrollY;
+            scrollTo(getRowTop(row) + STEP);
+
+            assertTrue(mTarget.mScrollY > before);
+        }
+        for (int row = ROW_COUNT - 20; row >= 0; row -= 10) {
+            int before = mTarget.mScrollY;
+            scrollTo(getRowTop(row) + STEP);
+
+            assertTrue(mTarget.mScrollY < before);
+        }
+    }
+
+    private void scrollTo(int y) {
+        int row = 0;
+        while (row < ROW_COUNT - 1 && getRowTop(row + 1) <= y) {
+            row++;
+        }
+        mListView.setSelectionFromTop(row, getRowTop(row) - y);
+        layout();
+    }
+
+    private void layout() {
+        mListView.measure(View.MeasureSpec.makeMeasureSpec(LIST_HEIGHT, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(LIST_HEIGHT, View.MeasureSpec.EXACTLY));
+        mListView.layout(0, 0, LIST_HEIGHT, LIST_HEIGHT);
+    }
+
+    private static int getRowHeight(int row) {
+        return 40 + (row % 5) * 30;
+    }
+
+    private static int getRowTop(int row) {
+        int top = 0;
+        for (int i = 0; i < row; i++) {
+            top += getRowHeight(i);
+        }
+        return top;
+    }
+
+    private static int getContentHeight() {
+        return getRowTop(ROW_COUNT);
+    }
+
+    private static class RowAdapter extends BaseAdapter {
+        int mRecycledCount;
+
+        @Override
+        public int getCount() {
+            return ROW_COUNT;
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return position;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            View view = convertView;
+            if (view == null) {
+                view = new View(parent.getContext());
+            } else {
+                mRecycledCount++;
+            }
+            // A recycled row takes the height of its new position
+            view.setLayoutParams(new AbsListView.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT, getRowHeight(position)));
+            return view;
+        }
+    }
+
+    private static class RecordingTarget implements ScrollTarget {
+        int mScrollY;
+
+        @Override
+        public void onScrollDelta(int delta) {
+            mScrollY += delta;
+        }
+
+        @Override
+        public void onScrollIdle() {
+        }
+
+        @Override
+        public void onScrollEdges(int edges) {
+        }
+
+        @Override
+        public void onScrollUp() {
+        }
+
+        @Override
+        public void onScrollDown() {
+        }
+    }
+}
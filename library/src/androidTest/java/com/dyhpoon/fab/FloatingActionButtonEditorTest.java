@@ -0,0 +1,87 @@
+package com.dyhpoon.fab;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.os.Build;
+import android.test.AndroidTestCase;
+
+public class FloatingActionButtonEditorTest extends AndroidTestCase {
+    private CountingButton mButton;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mButton = new CountingButton(getContext());
+        mButton.mUpdateCount = 0;
+    }
+
+    public void testEditRebuildsTheBackgroundOnce() {
+        mButton.edit()
+                .setColorNormal(Color.RED)
+                .setColorPressed(Color.GREEN)
+                .setColorDisabled(Color.BLUE)
+                .setType(FloatingActionButton.TYPE_MINI)
+                .setShadow(false)
+                .apply();
+
+        assertEquals(1, mButton.mUpdateCount);
+    }
+
+    public void testNestedEditsRebuildWithTheOutermostApply() {
+        FloatingActionButton.Editor outer = mButton.edit().setColorNormal(Color.RED);
+        mButton.edit().setColorPressed(Color.GREEN).apply();
+
+        assertEquals(0, mButton.mUpdateCount);
+
+        outer.setType(FloatingActionButton.TYPE_MINI).apply();
+
+        assertEquals(1, mButton.mUpdateCount);
+    }
+
+    public void testSettersRebuildImmediatelyAfterApply() {
+        mButton.edit().setColorNormal(Color.RED).apply();
+        mButton.edit().apply();
+
+        mButton.setColorNormal(Color.GREEN);
+
+        assertEquals(2, mButton.mUpdateCount);
+    }
+
+    public void testColorChangeInCanvasModeOnlyInvalidates() {
+        // The canvas render mode is ignored from Lollipop on
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) return;
+        mButton.setRenderMode(FloatingActionButton.RENDER_MODE_CANVAS);
+        assertNull(mButton.getBackground());
+        mButton.mUpdateCount = 0;
+        mButton.mInvalidateCount = 0;
+
+        mButton.setColorNormal(Color.RED);
+        mButton.setColorPressed(Color.GREEN);
+        mButton.setColorDisabled(Color.BLUE);
+
+        assertEquals(0, mButton.mUpdateCount);
+        assertEquals(3, mButton.mInvalidateCount);
+        assertNull(mButton.getBackground());
+    }
+
+    private static class CountingButton extends FloatingActionButton {
+        int mUpdateCount;
+        int mInvalidateCount;
+
+        CountingButton(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void updateBackground() {
+            mUpdateCount++;
+            super.updateBackground();
+        }
+
+        @Override
+        public void invalidate() {
+            mInvalidateCount++;
+            super.invalidate();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.dyhpoon.fab;
+
+import android.content.Context;
+import android.os.Build;
+import android.test.AndroidTestCase;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+public class FloatingActionButtonMarginsTest extends AndroidTestCase {
+    private static final int MARGIN = 40;
+
+    private int mCompensation;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        boolean drawsShadow = Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP;
+        mCompensation = drawsShadow ? FabMetrics.get(getContext().getResources()).shadowSize : 0;
+    }
+
+    public void testMarginsAreCompensatedWhenAdded() {
+        FrameLayout parent = new FrameLayout(getContext());
+        FloatingActionButton button = new FloatingActionButton(getContext());
+        parent.addView(button, createParams());
+
+        assertMargins(MARGIN - mCompensation, button);
+    }
+
+    public void testCopiedParamsAreNotCompensatedAgain() {
+        FrameLayout parent = new FrameLayout(getContext());
+        FloatingActionButton button = new FloatingActionButton(getContext());
+        parent.addView(button, createParams());
+
+        for (int i = 0; i < 3; i++) {
+            FrameLayout.LayoutParams params =
+                    new FrameLayout.LayoutParams((FrameLayout.LayoutParams) button.getLayoutParams());
+            button.setLayoutParams(params);
+        }
+
+        assertMargins(MARGIN - mCompensation, button);
+    }
+
+    public void testParamsConvertedByTheParentAreNotCompensatedAgain() {
+        FloatingActionButton button = new FloatingActionButton(getContext());
+        ViewGroup.MarginLayoutParams params = new ViewGroup.MarginLayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        params.setMargins(MARGIN, MARGIN, MARGIN, MARGIN);
+        button.setLayoutParams(params);
+
+        ConvertingFrameLayout parent = new ConvertingFrameLayout(getContext());
+        parent.addView(button);
+
+        assertTrue(button.getLayoutParams() instanceof FrameLayout.LayoutParams);
+        assertMargins(MARGIN - mCompensation, button);
+    }
+
+    public void testTogglingTheShadowUpdatesTheCompensation() {
+        FrameLayout parent = new FrameLayout(getContext());
+        FloatingActionButton button = new FloatingActionButton(getContext());
+        button.setShadow(false);
+        parent.addView(button, createParams());
+        assertMargins(MARGIN, button);
+
+        button.setShadow(true);
+        assertMargins(MARGIN - mCompensation, button);
+
+        button.setShadow(false);
+        assertMargins(MARGIN, button);
+    }
+
+    public void testLayoutPassDoesNotRequestAnotherOne() {
+        CountingFrameLayout parent = new CountingFrameLayout(getContext());
+        CountingButton button = new CountingButton(getContext());
+        parent.addView(button, createParams());
+        button.mRequestLayoutCount = 0;
+
+        int spec = View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY);
+        parent.measure(spec, spec);
+        parent.layout(0, 0, 1000, 1000);
+
+        assertEquals(1, parent.mMeasureCount);
+        assertEquals(1, parent.mLayoutCount);
+        assertEquals(0, button.mRequestLayoutCount);
+        assertFalse(button.isLayoutRequested());
+        assertFalse(parent.isLayoutRequested());
+    }
+
+    private static FrameLayout.LayoutParams createParams() {
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        params.setMargins(MARGIN, MARGIN, MARGIN, MARGIN);
+        return params;
+    }
+
+    private static void assertMargins(int expected, View view) {
+        ViewGroup.MarginLayoutParams params = (ViewGroup.MarginLayoutParams) view.getLayoutParams();
+        assertEquals(expected, params.leftMargin);
+        assertEquals(expected, params.topMargin);
+        assertEquals(expected, params.rightMargin);
+        assertEquals(expected, params.bottomMargin);
+    }
+
+    private static class CountingFrameLayout extends FrameLayout {
+        int mMeasureCount;
+        int mLayoutCount;
+
+        CountingFrameLayout(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            mMeasureCount++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+            mLayoutCount++;
+            super.onLayout(changed, left, top, right, bottom);
+        }
+    }
+
+    /**
+     * Copies foreign params including their margins when a child is added, like most layouts
+     * of the support libraries do.
+     */
+    private static class ConvertingFrameLayout extends FrameLayout {
+        ConvertingFrameLayout(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+            if (p instanceof MarginLayoutParams) {
+                return new LayoutParams((MarginLayoutParams) p);
+            }
+            return super.generateLayoutParams(p);
+        }
+    }
+
+    private static class CountingButton extends FloatingActionButton {
+        int mRequestLayoutCount;
+
+        CountingButton(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void requestLayout() {
+            mRequestLayoutCount++;
+            super.requestLayout();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.dyhpoon.fab;
+
+import android.content.Context;
+import android.os.Debug;
+import android.test.InstrumentationTestCase;
+import android.test.UiThreadTest;
+import android.view.View;
+
+public class FloatingActionsMenuAnimationTest extends InstrumentationTestCase {
+    private static final int[] BUTTON_COUNTS = {3, 10, 30};
+    private static final int FRAMES = 60;
+
+    private Context mContext;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mContext = getInstrumentation().getTargetContext();
+    }
+
+    public void testCollapsedButtonsAreHiddenBehindTheMenuButton() {
+        for (int count : BUTTON_COUNTS) {
+            CountingMenu menu = createMenu(count);
+            for (int i = 0; i < count; i++) {
+                View button = menu.getChildAt(i);
+                assertTrue(button.getTranslationY() > 0f);
+                assertEquals(0f, button.getAlpha(), 0f);
+            }
+        }
+    }
+
+    @UiThreadTest
+    public void testOneAnimatorDrivesAllButtons() {
+        for (int count : BUTTON_COUNTS) {
+            CountingMenu menu = createMenu(count);
+            menu.expand();
+
+            assertTrue(menu.getToggleAnimation(true).isStarted());
+            assertFalse(menu.getToggleAnimation(false).isStarted());
+
+            menu.collapse();
+
+            assertFalse(menu.getToggleAnimation(true).isStarted());
+            assertTrue(menu.getToggleAnimation(false).isStarted());
+
+            menu.getToggleAnimation(false).end();
+            for (int i = 0; i < count; i++) {
+                assertEquals(0f, menu.getChildAt(i).getAlpha(), 0f);
+            }
+        }
+    }
+
+    public void testFractionMovesButtonsBetweenCollapsedAndExpanded() {
+        for (int count : BUTTON_COUNTS) {
+            CountingMenu menu = createMenu(count);
+            float[] collapsed = new float[count];
+            for (int i = 0; i < count; i++) {
+                collapsed[i] = menu.getChildAt(i).getTranslationY();
+            }
+
+            menu.applyAnimationFraction(1f, true);
+            for (int i = 0; i < count; i++) {
+                assertEquals(0f, menu.getChildAt(i).getTranslationY(), 0.5f);
+                assertEquals(1f, menu.getChildAt(i).getAlpha(), 0.01f);
+            }
+
+            menu.applyAnimationFraction(1f, false);
+            for (int i = 0; i < count; i++) {
+                assertEquals(collapsed[i], menu.getChildAt(i).getTranslationY(), 0.5f);
+                assertEquals(0f, menu.getChildAt(i).getAlpha(), 0.01f);
+            }
+        }
+    }
+
+    @UiThreadTest
+    public void testStaggerStartsTheInnermostButtonFirst() {
+        for (int count : BUTTON_COUNTS) {
+            CountingMenu menu = createMenu(count);
+            menu.setAnimationStagger(100);
+            menu.expand();
+            menu.getToggleAnimation(true).cancel();
+
+            menu.applyAnimationFraction(0.2f, true);
+
+            // Children are stored outermost first, the menu button last
+            View outermost = menu.getChildAt(0);
+            View innermost = menu.getChildAt(count - 1);
+            assertTrue(innermost.getAlpha() > 0f);
+            assertEquals(0f, outermost.getAlpha(), 0f);
+        }
+    }
+
+    public void testFramesDoNotAllocate() {
+        for (int count : BUTTON_COUNTS) {
+            CountingMenu menu = createMenu(count);
+            menu.applyAnimationFraction(0f, true);
+
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+            for (int frame = 0; frame <= FRAMES; frame++) {
+                menu.applyAnimationFraction(frame / (float) FRAMES, true);
+            }
+            Debug.stopAllocCounting();
+
+            assertEquals("Allocations with " + count + " buttons", 0, Debug.getThreadAllocCount());
+        }
+    }
+
+    public void testFramesDoNotRepeatTheLayout() {
+        for (int count : BUTTON_COUNTS) {
+            CountingMenu menu = createMenu(count);
+            menu.mLayoutCount = 0;
+            menu.mLayoutRequestCount = 0;
+
+            for (int frame = 0; frame <= FRAMES; frame++) {
+                menu.applyAnimationFraction(frame / (float) FRAMES, true);
+            }
+            for (int frame = 0; frame <= FRAMES; frame++) {
+                menu.applyAnimationFraction(frame / (float) FRAMES, false);
+            }
+
+            assertEquals(0, menu.mLayoutCount);
+            assertEquals(0, menu.mLayoutRequestCount);
+            assertFalse(menu.isLayoutRequested());
+        }
+    }
+
+    private CountingMenu createMenu(int buttonCount) {
+        CountingMenu menu = new CountingMenu(mContext);
+        for (int i = 0; i < buttonCount; i++) {
+            menu.addButton(new FloatingActionButton(mContext));
+        }
+        int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        menu.measure(spec, spec);
+        menu.layout(0, 0, menu.getMeasuredWidth(), menu.getMeasuredHeight());
+        return menu;
+    }
+
+    private static class CountingMenu extends FloatingActionsMenu {
+        int mLayoutCount;
+        int mLayoutRequestCount;
+
+        CountingMenu(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int l, int t, int r, int b) {
+            mLayoutCount++;
+            super.onLayout(changed, l, t, r, b);
+        }
+
+        @Override
+        public void requestLayout() {
+            mLayoutRequestCount++;
+            super.requestLayout();
+        }
+    }
+}
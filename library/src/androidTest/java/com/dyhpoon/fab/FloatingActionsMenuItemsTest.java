@@ -0,0 +1,140 @@
+package com.dyhpoon.fab;
+
+import android.content.Context;
+import android.test.InstrumentationTestCase;
+import android.test.UiThreadTest;
+import android.view.View;
+
+import java.util.Collections;
+
+public class FloatingActionsMenuItemsTest extends InstrumentationTestCase {
+    private Context mContext;
+    private FloatingActionsMenu mMenu;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mContext = getInstrumentation().getTargetContext();
+        mMenu = new FloatingActionsMenu(mContext);
+    }
+
+    public void testInflateReadsTopLevelItems() {
+        mMenu.inflateMenu(com.dyhpoon.fab.test.R.menu.fab_test_items);
+
+        assertEquals(4, mMenu.getItemCount());
+        FloatingActionsMenu.Item second = mMenu.findItem(com.dyhpoon.fab.test.R.id.fab_test_second);
+        assertEquals("Second", second.getTitle().toString());
+        assertFalse(second.isEnabled());
+        assertFalse(mMenu.findItem(com.dyhpoon.fab.test.R.id.fab_test_hidden).isVisible());
+        assertNull(mMenu.findItem(com.dyhpoon.fab.test.R.id.fab_test_nested));
+    }
+
+    @UiThreadTest
+    public void testButtonsAreCreatedOnFirstExpand() {
+        FloatingActionsMenu.Item first = mMenu.addItem(1);
+        FloatingActionsMenu.Item second = mMenu.addItem(2);
+        assertEquals(1, mMenu.getChildCount());
+        assertNull(first.getButton());
+
+        mMenu.expand();
+
+        // Children are stored outermost first, the first item sits next to the menu button
+        assertEquals(3, mMenu.getChildCount());
+        assertSame(first.getButton(), mMenu.getChildAt(1));
+        assertSame(second.getButton(), mMenu.getChildAt(0));
+    }
+
+    @UiThreadTest
+    public void testHiddenItemGetsItsButtonNextToItsNeighbours() {
+        FloatingActionsMenu.Item first = mMenu.addItem(1);
+        FloatingActionsMenu.Item hidden = mMenu.addItem(2).setVisible(false);
+        FloatingActionsMenu.Item third = mMenu.addItem(3);
+        mMenu.expand();
+        assertNull(hidden.getButton());
+
+        hidden.setVisible(true);
+
+        assertEquals(4, mMenu.getChildCount());
+        assertSame(third.getButton(), mMenu.getChildAt(0));
+        assertSame(hidden.getButton(), mMenu.getChildAt(1));
+        assertSame(first.getButton(), mMenu.getChildAt(2));
+    }
+
+    @UiThreadTest
+    public void testItemAddedLaterKeepsTheExistingButtons() {
+        FloatingActionsMenu.Item first = mMenu.addItem(1);
+        mMenu.expand();
+        mMenu.collapse();
+        View firstButton = first.getButton();
+
+        FloatingActionsMenu.Item second = mMenu.addItem(2);
+        mMenu.expand();
+
+        assertSame(firstButton, first.getButton());
+        assertSame(second.getButton(), mMenu.getChildAt(0));
+        assertSame(firstButton, mMenu.getChildAt(1));
+    }
+
+    @UiThreadTest
+    public void testRemovedItemTakesItsButtonAlong() {
+        FloatingActionsMenu.Item first = mMenu.addItem(1);
+        mMenu.addItem(2);
+        mMenu.expand();
+        View button = first.getButton();
+
+        mMenu.removeItem(1);
+
+        assertNull(button.getParent());
+        assertNull(mMenu.findItem(1));
+        assertEquals(2, mMenu.getChildCount());
+    }
+
+    @UiThreadTest
+    public void testChangesAreAppliedToTheButton() {
+        FloatingActionsMenu.Item item = mMenu.addItem(1);
+        mMenu.expand();
+
+        item.setEnabled(false).setTitle("Share").setVisible(false);
+
+        FloatingActionButton button = item.getButton();
+        assertFalse(button.isEnabled());
+        assertEquals("Share", button.getContentDescription());
+        assertEquals(View.GONE, button.getVisibility());
+    }
+
+    @UiThreadTest
+    public void testClickReportsTheItemAndCollapses() {
+        final FloatingActionsMenu.Item[] clicked = new FloatingActionsMenu.Item[1];
+        FloatingActionsMenu.Item item = mMenu.addItem(1);
+        mMenu.setOnItemClickListener(new FloatingActionsMenu.OnItemClickListener() {
+            @Override
+            public void onItemClick(FloatingActionsMenu.Item clickedItem) {
+                clicked[0] = clickedItem;
+            }
+        });
+        mMenu.expand();
+
+        item.getButton().performClick();
+
+        assertSame(item, clicked[0]);
+        assertFalse(mMenu.isExpanded());
+    }
+
+    @UiThreadTest
+    public void testPlainButtonsStayInsideTheItemButtons() {
+        FloatingActionsMenu.Item item = mMenu.addItem(1);
+        FloatingActionButton plain = new FloatingActionButton(mContext);
+        mMenu.addButton(plain);
+        mMenu.expand();
+
+        assertSame(item.getButton(), mMenu.getChildAt(0));
+        assertSame(plain, mMenu.getChildAt(1));
+
+        mMenu.setButtons(Collections.<FloatingActionButton>emptyList());
+        mMenu.removeButton(item.getButton());
+
+        assertNull(plain.getParent());
+        assertSame(item.getButton(), mMenu.getChildAt(0));
+        assertEquals(2, mMenu.getChildCount());
+    }
+}
@@ -0,0 +1,221 @@
+package com.dyhpoon.fab;
+
+import android.animation.ValueAnimator;
+import android.content.Context;
+import android.test.InstrumentationTestCase;
+import android.test.UiThreadTest;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class FloatingActionsMenuLayoutTest extends InstrumentationTestCase {
+    private static final int BUTTON_COUNT = 3;
+    private static final float MARKER = 12345f;
+
+    private Context mContext;
+    private FloatingActionsMenu mMenu;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mContext = getInstrumentation().getTargetContext();
+        mMenu = new FloatingActionsMenu(mContext);
+        for (int i = 0; i < BUTTON_COUNT; i++) {
+            mMenu.addButton(new FloatingActionButton(mContext));
+        }
+        layout();
+    }
+
+    public void testUnchangedLayoutDoesNotTouchTheButtons() {
+        for (int i = 0; i < BUTTON_COUNT; i++) {
+            mMenu.getChildAt(i).setTranslationY(MARKER);
+        }
+
+        mMenu.requestLayout();
+        layout();
+
+        for (int i = 0; i < BUTTON_COUNT; i++) {
+            assertEquals(MARKER, mMenu.getChildAt(i).getTranslationY(), 0f);
+        }
+    }
+
+    public void testGoneButtonDoesNotInvalidateTheLayout() {
+        FloatingActionButton gone = new FloatingActionButton(mContext);
+        gone.setVisibility(View.GONE);
+        mMenu.addButton(gone);
+        layout();
+        for (int i = 0; i < mMenu.getChildCount(); i++) {
+            mMenu.getChildAt(i).setTranslationY(MARKER);
+        }
+
+        mMenu.requestLayout();
+        layout();
+
+        for (int i = 0; i < mMenu.getChildCount(); i++) {
+            assertEquals(MARKER, mMenu.getChildAt(i).getTranslationY(), 0f);
+        }
+    }
+
+    @UiThreadTest
+    public void testUnchangedLayoutDoesNotTouchTheAnimators() {
+        mMenu.expand();
+        ValueAnimator expand = mMenu.getToggleAnimation(true);
+
+        mMenu.requestLayout();
+        layout();
+
+        assertTrue(expand.isStarted());
+        assertFalse(mMenu.getToggleAnimation(false).isStarted());
+    }
+
+    public void testReplacedChildIsLaidOutCollapsed() {
+        View replacement = new FloatingActionButton(mContext);
+        // Same number of children, only the identity of one changes
+        mMenu.removeViewAt(0);
+        mMenu.addView(replacement, 0);
+
+        layout();
+
+        assertTrue(replacement.getTranslationY() > 0f);
+        assertEquals(0f, replacement.getAlpha(), 0f);
+    }
+
+    public void testReorderedButtonsMoveToTheirNewPositions() {
+        List<FloatingActionButton> buttons = new ArrayList<FloatingActionButton>();
+        float[] translations = new float[BUTTON_COUNT];
+        for (int i = 0; i < BUTTON_COUNT; i++) {
+            // Children are stored outermost first, setButtons() takes them innermost first
+            buttons.add(0, (FloatingActionButton) mMenu.getChildAt(i));
+            translations[i] = mMenu.getChildAt(i).getTranslationY();
+        }
+
+        Collections.reverse(buttons);
+        mMenu.setButtons(buttons);
+        layout();
+
+        for (int i = 0; i < BUTTON_COUNT; i++) {
+            assertSame(buttons.get(BUTTON_COUNT - 1 - i), mMenu.getChildAt(i));
+            assertEquals(translations[i], mMenu.getChildAt(i).getTranslationY(), 0.5f);
+        }
+    }
+
+    public void testSwappedInButtonStartsCollapsed() {
+        List<FloatingActionButton> buttons = new ArrayList<FloatingActionButton>();
+        for (int i = BUTTON_COUNT - 1; i >= 0; i--) {
+            buttons.add((FloatingActionButton) mMenu.getChildAt(i));
+        }
+        FloatingActionButton replacement = new FloatingActionButton(mContext);
+        buttons.set(0, replacement);
+
+        mMenu.setButtons(buttons);
+        layout();
+
+        assertTrue(replacement.getTranslationY() > 0f);
+        assertEquals(0f, replacement.getAlpha(), 0f);
+    }
+
+    public void testRemovedButtonIsNoLongerAnimated() {
+        View removed = mMenu.getChildAt(0);
+        mMenu.removeButton((FloatingActionButton) removed);
+
+        // A frame before the next layout pass
+        mMenu.applyAnimationFraction(0.5f, true);
+
+        assertEquals(0f, removed.getTranslationY(), 0f);
+        assertEquals(1f, removed.getAlpha(), 0f);
+    }
+
+    public void testExpandLeftLinesTheButtonsUpToTheLeft() {
+        assertLinedUp(FloatingActionsMenu.EXPAND_LEFT);
+    }
+
+    public void testExpandRightLinesTheButtonsUpToTheRight() {
+        assertLinedUp(FloatingActionsMenu.EXPAND_RIGHT);
+    }
+
+    public void testQuarterArcRunsFromTopToLeft() {
+        assertOnArc(FloatingActionsMenu.EXPAND_QUARTER_ARC, Math.PI / 2, Math.PI);
+    }
+
+    public void testHalfArcRunsFromLeftToRight() {
+        assertOnArc(FloatingActionsMenu.EXPAND_HALF_ARC, Math.PI, 0);
+    }
+
+    private void assertLinedUp(int direction) {
+        mMenu.setExpandDirection(direction);
+        layout();
+
+        View previous = getMenuButton();
+        // From the menu button outwards
+        for (int i = BUTTON_COUNT - 1; i >= 0; i--) {
+            View button = mMenu.getChildAt(i);
+            assertEquals(centerY(previous), centerY(button), 1f);
+            if (direction == FloatingActionsMenu.EXPAND_LEFT) {
+                assertTrue(button.getRight() <= previous.getLeft());
+            } else {
+                assertTrue(button.getLeft() >= previous.getRight());
+            }
+            previous = button;
+        }
+        assertCollapsedOntoTheMenuButton();
+    }
+
+    private void assertOnArc(int direction, double firstAngle, double lastAngle) {
+        mMenu.setExpandDirection(direction);
+        layout();
+
+        View menuButton = getMenuButton();
+        FabMetrics metrics = FabMetrics.get(mContext.getResources());
+        // Neighbouring buttons are at least one button plus the spacing apart
+        int size = Math.max(menuButton.getWidth(), menuButton.getHeight()) + metrics.menuButtonSpacing;
+        double step = Math.abs(lastAngle - firstAngle) / (BUTTON_COUNT - 1);
+        int radius = Math.max(size, (int) Math.ceil(size / (2 * Math.sin(step / 2))));
+
+        for (int i = BUTTON_COUNT - 1; i >= 0; i--) {
+            View button = mMenu.getChildAt(i);
+            float dx = centerX(button) - centerX(menuButton);
+            float dy = centerY(menuButton) - centerY(button);
+            float fraction = (BUTTON_COUNT - 1 - i) / (float) (BUTTON_COUNT - 1);
+            assertEquals(radius, Math.hypot(dx, dy), 1.5);
+            assertEquals(firstAngle + (lastAngle - firstAngle) * fraction, Math.atan2(dy, dx), 0.02);
+        }
+
+        // The measured size leaves room for the overshoot of the buttons on the arc
+        int extent = radius * 12 / 10;
+        int arcWidth = direction == FloatingActionsMenu.EXPAND_HALF_ARC ? extent * 2 : extent;
+        int shadow = metrics.menuShadowOffset * 2;
+        assertEquals(extent + menuButton.getHeight() + shadow, mMenu.getMeasuredHeight());
+        assertEquals(arcWidth + menuButton.getWidth() + shadow, mMenu.getMeasuredWidth());
+        assertCollapsedOntoTheMenuButton();
+    }
+
+    private void assertCollapsedOntoTheMenuButton() {
+        View menuButton = getMenuButton();
+        for (int i = 0; i < BUTTON_COUNT; i++) {
+            View button = mMenu.getChildAt(i);
+            assertEquals(centerX(menuButton), centerX(button) + button.getTranslationX(), 1f);
+            assertEquals(centerY(menuButton), centerY(button) + button.getTranslationY(), 1f);
+            assertEquals(0f, button.getAlpha(), 0f);
+        }
+    }
+
+    private View getMenuButton() {
+        return mMenu.getChildAt(BUTTON_COUNT);
+    }
+
+    private static float centerX(View view) {
+        return (view.getLeft() + view.getRight()) / 2f;
+    }
+
+    private static float centerY(View view) {
+        return (view.getTop() + view.getBottom()) / 2f;
+    }
+
+    private void layout() {
+        int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        mMenu.measure(spec, spec);
+        mMenu.layout(0, 0, mMenu.getMeasuredWidth(), mMenu.getMeasuredHeight());
+    }
+}
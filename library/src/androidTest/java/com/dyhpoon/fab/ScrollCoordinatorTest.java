@@ -0,0 +1,258 @@
+package com.dyhpoon.fab;
+
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+import android.test.AndroidTestCase;
+import android.widget.ListView;
+import android.widget.ScrollView;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ScrollCoordinatorTest extends AndroidTestCase {
+    private static final int THRESHOLD = 42;
+
+    private ListView mListView;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mListView = new ListView(getContext());
+    }
+
+    public void testButtonsWithEqualSettingsShareTheCoordinator() {
+        FloatingActionButton first = new FloatingActionButton(getContext());
+        FloatingActionButton second = new FloatingActionButton(getContext());
+
+        ScrollCoordinator.Binding firstBinding = first.attachToListView(mListView);
+        ScrollCoordinator.Binding secondBinding = second.attachToListView(mListView);
+
+        assertSame(firstBinding.getCoordinator(), secondBinding.getCoordinator());
+    }
+
+    public void testConflictingSettingsAreRejected() {
+        FloatingActionButton first = new FloatingActionButton(getContext());
+        FloatingActionButton second = new FloatingActionButton(getContext());
+        first.setScrollThreshold(THRESHOLD);
+        second.setScrollThreshold(THRESHOLD + 1);
+        ScrollCoordinator.Binding firstBinding = first.attachToListView(mListView);
+
+        try {
+            second.attachToListView(mListView);
+            fail("Attaching with a different threshold should be rejected");
+        } catch (IllegalStateException expected) {
+        }
+        assertTrue(firstBinding.isAttached());
+    }
+
+    public void testDefaultSettingsNeverConflict() {
+        FloatingActionButton first = new FloatingActionButton(getContext());
+        FloatingActionButton second = new FloatingActionButton(getContext());
+        first.setScrollThreshold(THRESHOLD);
+        first.setScrollAxis(FloatingActionButton.SCROLL_AXIS_HORIZONTAL);
+        ObservableScrollView scrollView = new ObservableScrollView(getContext());
+        first.attachToScrollView(scrollView);
+
+        ScrollCoordinator.Binding binding = second.attachToScrollView(scrollView);
+
+        assertEquals(THRESHOLD, binding.getCoordinator().getScrollThreshold());
+        // The joining button hides along the axis the coordinator observes
+        assertEquals(FloatingActionButton.SCROLL_AXIS_HORIZONTAL, second.getScrollAxis());
+    }
+
+    public void testReattachingWhileAnotherButtonIsBound() {
+        FloatingActionButton first = new FloatingActionButton(getContext());
+        FloatingActionButton second = new FloatingActionButton(getContext());
+        first.setScrollThreshold(THRESHOLD);
+        first.attachToListView(mListView);
+        second.attachToListView(mListView);
+
+        // E.g. both re-attached in onResume()
+        assertTrue(first.attachToListView(mListView).isAttached());
+        assertTrue(second.attachToListView(mListView).isAttached());
+    }
+
+    public void testCoordinatorSettingsTakePrecedence() {
+        ScrollCoordinator coordinator = ScrollCoordinator.of(mListView);
+        coordinator.setScrollThreshold(THRESHOLD);
+        FloatingActionButton first = new FloatingActionButton(getContext());
+        FloatingActionButton second = new FloatingActionButton(getContext());
+        second.setScrollThreshold(THRESHOLD + 1);
+
+        first.attachToListView(mListView);
+        second.attachToListView(mListView);
+
+        assertEquals(THRESHOLD, coordinator.getScrollThreshold());
+    }
+
+    public void testSettingsCanChangeOnceTheContainerIsFree() {
+        FloatingActionButton first = new FloatingActionButton(getContext());
+        FloatingActionButton second = new FloatingActionButton(getContext());
+        second.setScrollAxis(FloatingActionButton.SCROLL_AXIS_HORIZONTAL);
+        first.attachToListView(mListView).detach();
+
+        assertTrue(second.attachToListView(mListView).isAttached());
+    }
+
+    public void testDetachRemovesTheCoordinatorFromTheContainer() {
+        CountingScrollView scrollView = new CountingScrollView(getContext());
+        FloatingActionButton button = new FloatingActionButton(getContext());
+
+        ScrollCoordinator.Binding binding = button.attachToScrollView(scrollView);
+        assertEquals(1, scrollView.mListenerCount);
+
+        binding.detach();
+
+        assertNull(scrollView.getTag(R.id.fab_scroll_coordinator));
+        assertEquals(0, scrollView.mListenerCount);
+    }
+
+    public void testRemovingTheLastListenerReleasesTheCoordinator() {
+        CountingScrollView scrollView = new CountingScrollView(getContext());
+        ScrollDirectionListener listener = new ScrollDirectionListener() {
+            @Override
+            public void onScrollDown() {
+            }
+
+            @Override
+            public void onScrollUp() {
+            }
+        };
+        ScrollCoordinator.of(scrollView).addScrollDirectionListener(listener);
+        assertEquals(1, scrollView.mListenerCount);
+
+        ScrollCoordinator.of(scrollView).removeScrollDirectionListener(listener);
+
+        assertNull(scrollView.getTag(R.id.fab_scroll_coordinator));
+        assertEquals(0, scrollView.mListenerCount);
+    }
+
+    public void testAttachingKeepsTheListenersOfTheScrollView() {
+        CountingScrollView scrollView = new CountingScrollView(getContext());
+        RecordingScrollListener own = new RecordingScrollListener();
+        RecordingScrollListener first = new RecordingScrollListener();
+        RecordingScrollListener second = new RecordingScrollListener();
+        scrollView.addOnScrollChangedListener(own);
+        ScrollCoordinator.Binding firstBinding = new FloatingActionButton(getContext())
+                .attachToScrollView(scrollView, null, first);
+        new FloatingActionButton(getContext()).attachToScrollView(scrollView, null, second);
+
+        scrollView.dispatchScroll(10);
+        firstBinding.detach();
+        scrollView.dispatchScroll(20);
+
+        assertEquals(2, own.mCount);
+        assertEquals(1, first.mCount);
+        assertEquals(2, second.mCount);
+    }
+
+    public void testAttachingKeepsTheListenersOfTheRecyclerView() {
+        CountingRecyclerView recyclerView = new CountingRecyclerView(getContext());
+        RecyclerView.OnScrollListener own = new RecyclerView.OnScrollListener() {
+        };
+        recyclerView.addOnScrollListener(own);
+
+        ScrollCoordinator.Binding binding = new FloatingActionButton(getContext())
+                .attachToRecyclerView(recyclerView);
+        assertEquals(2, recyclerView.mListeners.size());
+        assertTrue(recyclerView.mListeners.contains(own));
+
+        binding.detach();
+        assertEquals(Collections.singletonList(own), recyclerView.mListeners);
+    }
+
+    public void testWeaklyBoundButtonIsNotLeaked() {
+        CountingScrollView scrollView = new CountingScrollView(getContext());
+        WeakReference<FloatingActionButton> reference = attachWeakly(scrollView);
+
+        collect(reference);
+        assertNull("The coordinator keeps the button reachable", reference.get());
+        scrollView.dispatchScroll(10);
+
+        assertNull(scrollView.getTag(R.id.fab_scroll_coordinator));
+        assertEquals(0, scrollView.mListenerCount);
+    }
+
+    public void testCoordinatorStaysWhileAWeaklyBoundButtonIsAlive() {
+        CountingScrollView scrollView = new CountingScrollView(getContext());
+        FloatingActionButton button = new FloatingActionButton(getContext());
+        button.setWeakScrollBinding(true);
+        button.attachToScrollView(scrollView);
+
+        collect(new WeakReference<Object>(new Object()));
+        scrollView.dispatchScroll(10);
+
+        assertNotNull(scrollView.getTag(R.id.fab_scroll_coordinator));
+        assertEquals(1, scrollView.mListenerCount);
+    }
+
+    // Separate method, so that no local variable of the test keeps the button reachable
+    private WeakReference<FloatingActionButton> attachWeakly(ObservableScrollView scrollView) {
+        FloatingActionButton button = new FloatingActionButton(getContext());
+        button.setWeakScrollBinding(true);
+        button.attachToScrollView(scrollView);
+        return new WeakReference<FloatingActionButton>(button);
+    }
+
+    private static void collect(WeakReference<?> reference) {
+        for (int i = 0; i < 10 && reference.get() != null; i++) {
+            Runtime.getRuntime().gc();
+            System.runFinalization();
+        }
+    }
+
+    private static class CountingScrollView extends ObservableScrollView {
+        int mListenerCount;
+
+        CountingScrollView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void addOnScrollChangedListener(OnScrollChangedListener listener) {
+            mListenerCount++;
+            super.addOnScrollChangedListener(listener);
+        }
+
+        @Override
+        public void removeOnScrollChangedListener(OnScrollChangedListener listener) {
+            mListenerCount--;
+            super.removeOnScrollChangedListener(listener);
+        }
+
+        void dispatchScroll(int top) {
+            onScrollChanged(0, top, 0, 0);
+        }
+    }
+
+    private static class CountingRecyclerView extends RecyclerView {
+        final List<OnScrollListener> mListeners = new ArrayList<OnScrollListener>();
+
+        CountingRecyclerView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void addOnScrollListener(OnScrollListener listener) {
+            mListeners.add(listener);
+            super.addOnScrollListener(listener);
+        }
+
+        @Override
+        public void removeOnScrollListener(OnScrollListener listener) {
+            mListeners.remove(listener);
+            super.removeOnScrollListener(listener);
+        }
+    }
+
+    private static class RecordingScrollListener implements ObservableScrollView.OnScrollChangedListener {
+        int mCount;
+
+        @Override
+        public void onScrollChanged(ScrollView who, int l, int t, int oldl, int oldt) {
+            mCount++;
+        }
+    }
+}
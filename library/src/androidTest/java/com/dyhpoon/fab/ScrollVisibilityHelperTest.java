@@ -0,0 +1,148 @@
+package com.dyhpoon.fab;
+
+import android.test.AndroidTestCase;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.nineoldandroids.view.ViewHelper;
+
+public class ScrollVisibilityHelperTest extends AndroidTestCase {
+    private static final int SIZE = 100;
+    private static final int MARGIN = 16;
+
+    private View mView;
+    private ScrollVisibilityHelper mHelper;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mView = new View(getContext());
+        mHelper = new ScrollVisibilityHelper(mView, FabMetrics.get(getContext().getResources()));
+    }
+
+    public void testRequestBeforeLayoutIsDeferred() {
+        mHelper.hide(false);
+
+        assertFalse(mHelper.isVisible());
+        assertTrue(mHelper.hasPendingVisibility());
+        assertEquals(0f, ViewHelper.getTranslationY(mView), 0f);
+    }
+
+    public void testOnlyTheLatestRequestIsReplayed() {
+        for (int i = 0; i < 50; i++) {
+            mHelper.hide(true);
+            mHelper.show(true);
+        }
+        mHelper.hide(false);
+
+        layout();
+        mView.getViewTreeObserver().dispatchOnPreDraw();
+
+        assertFalse(mHelper.hasPendingVisibility());
+        assertFalse(mHelper.isVisible());
+        assertEquals((float) SIZE, ViewHelper.getTranslationY(mView), 0f);
+    }
+
+    public void testReplayedRequestDoesNotStayRegistered() {
+        for (int i = 0; i < 50; i++) {
+            mHelper.show(false);
+            mHelper.hide(false);
+        }
+        layout();
+        mView.getViewTreeObserver().dispatchOnPreDraw();
+
+        // A listener registered more than once would hide the view again
+        ViewHelper.setTranslationY(mView, 0f);
+        mView.getViewTreeObserver().dispatchOnPreDraw();
+
+        assertEquals(0f, ViewHelper.getTranslationY(mView), 0f);
+    }
+
+    public void testRequestAfterLayoutReplacesThePendingOne() {
+        mHelper.hide(false);
+        layout();
+        mHelper.show(false);
+
+        assertFalse(mHelper.hasPendingVisibility());
+        mView.getViewTreeObserver().dispatchOnPreDraw();
+
+        assertTrue(mHelper.isVisible());
+        assertEquals(0f, ViewHelper.getTranslationY(mView), 0f);
+    }
+
+    public void testRequestMatchingTheCurrentStateIsNotDeferred() {
+        mHelper.show(false);
+
+        assertFalse(mHelper.hasPendingVisibility());
+    }
+
+    public void testHideIsIgnoredWhilePinned() {
+        mHelper.setPinned(true);
+        mHelper.hide(false);
+
+        assertTrue(mHelper.isVisible());
+        assertFalse(mHelper.hasPendingVisibility());
+    }
+
+    public void testHorizontalHideMovesOffTheRightEdge() {
+        mView.setLayoutParams(createParams());
+        mHelper.setScrollAxis(FloatingActionButton.SCROLL_AXIS_HORIZONTAL);
+        layout();
+
+        mHelper.hide(false);
+
+        assertEquals((float) SIZE + MARGIN, ViewHelper.getTranslationX(mView), 0f);
+        assertEquals(0f, ViewHelper.getTranslationY(mView), 0f);
+    }
+
+    public void testQuickReturnIsClampedBetweenShownAndHidden() {
+        mView.setLayoutParams(createParams());
+        mHelper.setQuickReturnEnabled(true);
+        layout();
+        ScrollTarget target = mHelper.getScrollTarget();
+
+        target.onScrollDelta(30);
+        assertEquals(30f, ViewHelper.getTranslationY(mView), 0f);
+
+        target.onScrollDelta(10 * SIZE);
+        assertEquals((float) SIZE + MARGIN, ViewHelper.getTranslationY(mView), 0f);
+
+        target.onScrollDelta(-20 * SIZE);
+        assertEquals(0f, ViewHelper.getTranslationY(mView), 0f);
+    }
+
+    public void testQuickReturnSnapsToTheCloserEndWhenIdle() {
+        mView.setLayoutParams(createParams());
+        mHelper.setQuickReturnEnabled(true);
+        layout();
+        ScrollTarget target = mHelper.getScrollTarget();
+        int hidden = SIZE + MARGIN;
+
+        target.onScrollDelta(hidden / 2 + 1);
+        target.onScrollIdle();
+        assertFalse(mHelper.isVisible());
+
+        target.onScrollDelta(-hidden);
+        target.onScrollDelta(hidden / 2 - 1);
+        target.onScrollIdle();
+        assertTrue(mHelper.isVisible());
+
+        // Already at an end, nothing is left to animate
+        target.onScrollDelta(hidden);
+        target.onScrollIdle();
+        assertFalse(mHelper.isVisible());
+        assertEquals((float) hidden, ViewHelper.getTranslationY(mView), 0f);
+    }
+
+    private static ViewGroup.MarginLayoutParams createParams() {
+        ViewGroup.MarginLayoutParams params = new ViewGroup.MarginLayoutParams(SIZE, SIZE);
+        params.setMargins(MARGIN, MARGIN, MARGIN, MARGIN);
+        return params;
+    }
+
+    private void layout() {
+        int spec = View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY);
+        mView.measure(spec, spec);
+        mView.layout(0, 0, SIZE, SIZE);
+    }
+}
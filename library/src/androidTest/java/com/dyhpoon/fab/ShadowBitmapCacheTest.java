@@ -0,0 +1,84 @@
+package com.dyhpoon.fab;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import junit.framework.TestCase;
+
+public class ShadowBitmapCacheTest extends TestCase {
+    private static final int SIZE = 100;
+    private static final int SHADOW_SIZE = 10;
+    private static final int CENTER = SIZE / 2 + SHADOW_SIZE;
+
+    @Override
+    protected void tearDown() throws Exception {
+        ShadowBitmapCache.clear();
+        super.tearDown();
+    }
+
+    public void testShadowCoversButtonAndMargin() {
+        Bitmap shadow = ShadowBitmapCache.createShadow(SIZE, SHADOW_SIZE, 6f, 0f, 0x80000000);
+
+        assertEquals(SIZE + SHADOW_SIZE * 2, shadow.getWidth());
+        assertEquals(SIZE + SHADOW_SIZE * 2, shadow.getHeight());
+        assertEquals(Bitmap.Config.ALPHA_8, shadow.getConfig());
+    }
+
+    public void testShadowKeepsOnlyTheAlphaOfTheColor() {
+        Bitmap shadow = ShadowBitmapCache.createShadow(SIZE, SHADOW_SIZE, 6f, 0f, 0x80ff0000);
+
+        assertAlpha(0x80, shadow, CENTER, CENTER);
+        assertAlpha(0, shadow, 0, 0);
+        assertAlpha(0, shadow, shadow.getWidth() - 1, shadow.getHeight() - 1);
+    }
+
+    public void testBlurFadesOutAcrossTheEdge() {
+        Bitmap shadow = ShadowBitmapCache.createShadow(SIZE, SHADOW_SIZE, 6f, 0f, 0xff000000);
+
+        int inside = alpha(shadow, SHADOW_SIZE + 4, CENTER);
+        int edge = alpha(shadow, SHADOW_SIZE, CENTER);
+        int outside = alpha(shadow, SHADOW_SIZE - 4, CENTER);
+        assertTrue(inside > edge);
+        assertTrue(edge > outside);
+        assertTrue(edge > 0 && edge < 0xff);
+    }
+
+    public void testShadowIsSymmetricWithoutOffset() {
+        Bitmap shadow = ShadowBitmapCache.createShadow(SIZE, SHADOW_SIZE, 6f, 0f, 0xff000000);
+
+        int last = shadow.getWidth() - 1;
+        for (int x = 0; x < shadow.getWidth(); x++) {
+            assertEquals(alpha(shadow, x, CENTER), alpha(shadow, last - x, CENTER), 1);
+            assertEquals(alpha(shadow, CENTER, x), alpha(shadow, CENTER, last - x), 1);
+        }
+    }
+
+    public void testOffsetMovesShadowDown() {
+        Bitmap shadow = ShadowBitmapCache.createShadow(SIZE, SHADOW_SIZE, 6f, 4f, 0xff000000);
+
+        int last = shadow.getHeight() - 1;
+        assertTrue(alpha(shadow, CENTER, last - SHADOW_SIZE / 2) > alpha(shadow, CENTER, SHADOW_SIZE / 2));
+    }
+
+    public void testWithoutBlurTheEdgeIsHard() {
+        Bitmap shadow = ShadowBitmapCache.createShadow(SIZE, SHADOW_SIZE, 0f, 0f, 0xff000000);
+
+        assertAlpha(0xff, shadow, SHADOW_SIZE + 2, CENTER);
+        assertAlpha(0, shadow, SHADOW_SIZE - 2, CENTER);
+    }
+
+    public void testEqualParametersShareOneBitmap() {
+        Bitmap first = ShadowBitmapCache.get(SIZE, SHADOW_SIZE, 6f, 2f, 0x80000000);
+
+        assertSame(first, ShadowBitmapCache.get(SIZE, SHADOW_SIZE, 6f, 2f, 0x80000000));
+        assertNotSame(first, ShadowBitmapCache.get(SIZE, SHADOW_SIZE, 6f, 3f, 0x80000000));
+    }
+
+    private static int alpha(Bitmap bitmap, int x, int y) {
+        return Color.alpha(bitmap.getPixel(x, y));
+    }
+
+    private static void assertAlpha(int expected, Bitmap bitmap, int x, int y) {
+        assertEquals(expected, alpha(bitmap, x, y), 1);
+    }
+}
@@ -0,0 +1,104 @@
+package com.dyhpoon.fab;
+
+import android.test.AndroidTestCase;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.widget.FrameLayout;
+
+import java.lang.reflect.Method;
+
+public class ViewScrollDetectorTest extends AndroidTestCase {
+    private FrameLayout mRoot;
+    private View mFirstView;
+    private View mSecondView;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mRoot = new FrameLayout(getContext());
+        mFirstView = new View(getContext());
+        mSecondView = new View(getContext());
+        mRoot.addView(mFirstView);
+        mRoot.addView(mSecondView);
+    }
+
+    public void testDetectorsOfOneWindowShareTheListener() throws Exception {
+        CountingDetector first = attach(mFirstView);
+        CountingDetector second = attach(mSecondView);
+
+        dispatchOnScrollChanged();
+
+        // A listener per detector would poll every detector once per listener
+        assertEquals(1, first.mPollCount);
+        assertEquals(1, second.mPollCount);
+        assertNotNull(mRoot.getTag(R.id.fab_window_scroll_observer));
+    }
+
+    public void testListenerIsRemovedWithTheLastDetector() throws Exception {
+        CountingDetector first = attach(mFirstView);
+        CountingDetector second = attach(mSecondView);
+
+        first.release();
+        dispatchOnScrollChanged();
+
+        assertEquals(0, first.mPollCount);
+        assertEquals(1, second.mPollCount);
+        assertNotNull(mRoot.getTag(R.id.fab_window_scroll_observer));
+
+        second.release();
+        dispatchOnScrollChanged();
+
+        assertEquals(1, second.mPollCount);
+        assertNull(mRoot.getTag(R.id.fab_window_scroll_observer));
+    }
+
+    private static CountingDetector attach(View view) {
+        CountingDetector detector = new CountingDetector(view);
+        // The views of the test have no window, deliver what attaching would
+        detector.onViewAttachedToWindow(view);
+        return detector;
+    }
+
+    // Detached views share the observer of their root, dispatching to it is not public API
+    private void dispatchOnScrollChanged() throws Exception {
+        Method dispatch = ViewTreeObserver.class.getDeclaredMethod("dispatchOnScrollChanged");
+        dispatch.setAccessible(true);
+        dispatch.invoke(mRoot.getViewTreeObserver());
+    }
+
+    private static class CountingDetector extends ViewScrollDetector {
+        int mPollCount;
+
+        CountingDetector(View view) {
+            super(new NoOpTarget(), view);
+        }
+
+        @Override
+        void onWindowScrollChanged() {
+            mPollCount++;
+            super.onWindowScrollChanged();
+        }
+    }
+
+    private static class NoOpTarget implements ScrollTarget {
+        @Override
+        public void onScrollDelta(int delta) {
+        }
+
+        @Override
+        public void onScrollIdle() {
+        }
+
+        @Override
+        public void onScrollEdges(int edges) {
+        }
+
+        @Override
+        public void onScrollUp() {
+        }
+
+        @Override
+        public void onScrollDown() {
+        }
+    }
+}
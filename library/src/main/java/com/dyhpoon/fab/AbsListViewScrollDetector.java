@@ -1,69 +1,141 @@
 package com.dyhpoon.fab;
 
-import android.support.annotation.NonNull;
+import android.util.SparseIntArray;
 import android.view.View;
 import android.widget.AbsListView;
+import android.widget.GridView;
 
-abstract class AbsListViewScrollDetector implements AbsListView.OnScrollListener {
-    private int mLastScrollY;
-    private int mPreviousFirstVisibleItem;
-    private AbsListView mListView;
-    private int mScrollThreshold;
-    private AbsListView.OnScrollListener mListViewScrollListener;
+/**
+ * Reports scroll deltas of an {@link AbsListView} based on an absolute scroll offset. The
+ * offset is derived from the heights of the rows that have been visible so far, so rows of
+ * different heights and rows skipped during a fling do not produce bogus directions.
+ */
+class AbsListViewScrollDetector implements AbsListView.OnScrollListener {
+    private static final AbsListView.OnScrollListener[] NO_LISTENERS =
+            new AbsListView.OnScrollListener[0];
 
-    abstract void onScrollUp();
+    private final ScrollTarget mTarget;
+    // Row index -> distance between the top of this row and the top of the next one
+    private final SparseIntArray mRowHeights = new SparseIntArray();
+    private int mEstimatedRowHeight;
+    private int mFirstRow = -1;
+    private int mFirstRowOffset;
+    private int mLastScrollY;
+    private int mTotalItemCount;
+    private AbsListView.OnScrollListener[] mListViewScrollListeners = NO_LISTENERS;
 
-    abstract void onScrollDown();
+    AbsListViewScrollDetector(ScrollTarget target) {
+        mTarget = target;
+    }
 
     @Override
     public void onScrollStateChanged(AbsListView view, int scrollState) {
-        if (mListViewScrollListener != null)
-            mListViewScrollListener.onScrollStateChanged(view, scrollState);
+        AbsListView.OnScrollListener[] listeners = mListViewScrollListeners;
+        for (AbsListView.OnScrollListener listener : listeners) {
+            listener.onScrollStateChanged(view, scrollState);
+        }
+        if (scrollState == SCROLL_STATE_IDLE) {
+            mTarget.onScrollIdle();
+        }
     }
 
     @Override
     public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
-        if(totalItemCount == 0) return;
-        if (isSameRow(firstVisibleItem)) {
-            int newScrollY = getTopItemScrollY();
-            boolean isSignificantDelta = Math.abs(mLastScrollY - newScrollY) > mScrollThreshold;
-            if (isSignificantDelta) {
-                if (mLastScrollY > newScrollY) {
-                    onScrollUp();
-                } else {
-                    onScrollDown();
-                }
-            }
-            mLastScrollY = newScrollY;
-        } else {
-            if (firstVisibleItem > mPreviousFirstVisibleItem) {
-                onScrollUp();
-            } else {
-                onScrollDown();
-            }
+        AbsListView.OnScrollListener[] listeners = mListViewScrollListeners;
+        for (AbsListView.OnScrollListener listener : listeners) {
+            listener.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
+        }
+        if (totalItemCount == 0 || view.getChildCount() == 0) return;
+        if (totalItemCount < mTotalItemCount) {
+            // Items were removed, the cached heights may belong to other items now
+            reset();
+        }
+        mTotalItemCount = totalItemCount;
+
+        mTarget.onScrollEdges(getEdges(view, firstVisibleItem, visibleItemCount, totalItemCount));
+
+        int columns = getNumColumns(view);
+        cacheRowHeights(view, firstVisibleItem, columns);
+
+        int firstRow = firstVisibleItem / columns;
+        if (mFirstRow < 0) {
+            mFirstRow = firstRow;
+            mFirstRowOffset = 0;
+            mLastScrollY = -view.getChildAt(0).getTop();
+            return;
+        }
+        for (int row = mFirstRow; row < firstRow; row++) {
+            mFirstRowOffset += getRowHeight(row);
+        }
+        for (int row = firstRow; row < mFirstRow; row++) {
+            mFirstRowOffset -= getRowHeight(row);
+        }
+        mFirstRow = firstRow;
 
-            mLastScrollY = getTopItemScrollY();
-            mPreviousFirstVisibleItem = firstVisibleItem;
+        int scrollY = mFirstRowOffset - view.getChildAt(0).getTop();
+        if (scrollY != mLastScrollY) {
+            mTarget.onScrollDelta(scrollY - mLastScrollY);
+            mLastScrollY = scrollY;
         }
-        if (mListViewScrollListener != null)
-            mListViewScrollListener.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
     }
 
-    public void setScrollThreshold(int scrollThreshold) {
-        mScrollThreshold = scrollThreshold;
+    void addOnScrollListener(AbsListView.OnScrollListener listener) {
+        mListViewScrollListeners = ArrayUtils.append(mListViewScrollListeners, listener);
     }
 
-    public void setListView(@NonNull AbsListView listView) {
-        mListView = listView;
+    void removeOnScrollListener(AbsListView.OnScrollListener listener) {
+        mListViewScrollListeners = ArrayUtils.remove(mListViewScrollListeners, listener);
     }
 
-    private boolean isSameRow(int firstVisibleItem) {
-        return firstVisibleItem == mPreviousFirstVisibleItem;
+    boolean hasListeners() {
+        return mListViewScrollListeners.length > 0;
     }
 
-    private int getTopItemScrollY() {
-        if (mListView == null || mListView.getChildAt(0) == null) return 0;
-        View topChild = mListView.getChildAt(0);
-        return topChild.getTop();
+    private void reset() {
+        mRowHeights.clear();
+        mFirstRow = -1;
+    }
+
+    private void cacheRowHeights(AbsListView view, int firstVisibleItem, int columns) {
+        int childCount = view.getChildCount();
+        for (int i = 0; i < childCount; i += columns) {
+            View child = view.getChildAt(i);
+            int row = (firstVisibleItem + i) / columns;
+            if (i + columns < childCount) {
+                // Measured against the next row, so dividers and spacing are included
+                int height = view.getChildAt(i + columns).getTop() - child.getTop();
+                mRowHeights.put(row, height);
+                mEstimatedRowHeight = height;
+            } else if (mRowHeights.indexOfKey(row) < 0) {
+                mRowHeights.put(row, child.getHeight());
+            }
+        }
+    }
+
+    private int getRowHeight(int row) {
+        // Rows skipped by a fast fling have never been laid out
+        return mRowHeights.get(row, mEstimatedRowHeight);
+    }
+
+    private static int getEdges(AbsListView view, int firstVisibleItem, int visibleItemCount,
+                                int totalItemCount) {
+        int edges = 0;
+        if (firstVisibleItem == 0 && view.getChildAt(0).getTop() >= view.getPaddingTop()) {
+            edges |= ScrollTarget.EDGE_START;
+        }
+        if (firstVisibleItem + visibleItemCount >= totalItemCount) {
+            View lastChild = view.getChildAt(view.getChildCount() - 1);
+            if (lastChild.getBottom() <= view.getHeight() - view.getPaddingBottom()) {
+                edges |= ScrollTarget.EDGE_END;
+            }
+        }
+        return edges;
+    }
+
+    private static int getNumColumns(AbsListView view) {
+        if (view instanceof GridView) {
+            return Math.max(1, ((GridView) view).getNumColumns());
+        }
+        return 1;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package com.dyhpoon.fab;
+
+import java.util.Arrays;
+
+/**
+ * Copy-on-write helpers for listener arrays. Registration allocates a new array, so iterating
+ * over a snapshot during dispatch needs neither a lock nor an iterator.
+ */
+final class ArrayUtils {
+
+    private ArrayUtils() {
+    }
+
+    static <T> T[] append(T[] array, T element) {
+        if (element == null || indexOf(array, element) >= 0) return array;
+        T[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = element;
+        return result;
+    }
+
+    static <T> T[] remove(T[] array, T element) {
+        int index = indexOf(array, element);
+        if (index < 0) return array;
+        T[] result = Arrays.copyOf(array, array.length - 1);
+        System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+        return result;
+    }
+
+    static <T> int indexOf(T[] array, T element) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == element) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,102 @@
+package com.dyhpoon.fab;
+
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+/**
+ * Process-wide LRU cache of {@link FloatingActionButton} backgrounds. Buttons with the same
+ * colors, type, shadow and screen density share one {@link Drawable.ConstantState}, so only
+ * the first of them pays for building the drawable tree. The ripple is not part of the cached
+ * drawable, each button keeps its own.
+ */
+public final class FabDrawableCache {
+    private static final int MAX_SIZE = 32;
+
+    private static final LruCache<Key, Drawable.ConstantState> sCache =
+            new LruCache<Key, Drawable.ConstantState>(MAX_SIZE);
+
+    // Reused for lookups so that a cache hit does not allocate a key
+    private static final Key sLookupKey = new Key();
+
+    private FabDrawableCache() {
+    }
+
+    static Drawable get(Resources resources, int colorNormal, int colorPressed, int colorDisabled,
+                        int type, boolean shadow) {
+        sLookupKey.set(colorNormal, colorPressed, colorDisabled, type, shadow,
+                resources.getDisplayMetrics().densityDpi);
+        Drawable.ConstantState state = sCache.get(sLookupKey);
+        return state != null ? state.newDrawable(resources) : null;
+    }
+
+    static void put(Resources resources, int colorNormal, int colorPressed, int colorDisabled,
+                    int type, boolean shadow, Drawable drawable) {
+        Drawable.ConstantState state = drawable.getConstantState();
+        if (state != null) {
+            Key key = new Key();
+            key.set(colorNormal, colorPressed, colorDisabled, type, shadow,
+                    resources.getDisplayMetrics().densityDpi);
+            sCache.put(key, state);
+        }
+    }
+
+    public static int getHitCount() {
+        return sCache.hitCount();
+    }
+
+    public static int getMissCount() {
+        return sCache.missCount();
+    }
+
+    public static int size() {
+        return sCache.size();
+    }
+
+    public static void clear() {
+        sCache.evictAll();
+    }
+
+    private static final class Key {
+        private int mColorNormal;
+        private int mColorPressed;
+        private int mColorDisabled;
+        private int mType;
+        private boolean mShadow;
+        private int mDensityDpi;
+
+        void set(int colorNormal, int colorPressed, int colorDisabled, int type, boolean shadow,
+                 int densityDpi) {
+            mColorNormal = colorNormal;
+            mColorPressed = colorPressed;
+            mColorDisabled = colorDisabled;
+            mType = type;
+            mShadow = shadow;
+            mDensityDpi = densityDpi;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return mColorNormal == key.mColorNormal
+                    && mColorPressed == key.mColorPressed
+                    && mColorDisabled == key.mColorDisabled
+                    && mType == key.mType
+                    && mShadow == key.mShadow
+                    && mDensityDpi == key.mDensityDpi;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mColorNormal;
+            result = 31 * result + mColorPressed;
+            result = 31 * result + mColorDisabled;
+            result = 31 * result + mType;
+            result = 31 * result + (mShadow ? 1 : 0);
+            result = 31 * result + mDensityDpi;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.dyhpoon.fab;
+
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.hardware.SensorManager;
+import android.view.ViewConfiguration;
+
+/**
+ * Dimensions and default colors used by {@link FloatingActionButton} and
+ * {@link FloatingActionsMenu}, resolved once per {@link Configuration} and shared by every
+ * instance.
+ */
+final class FabMetrics {
+    // Scrolling slower than this never changes the direction, in dp per second
+    private static final float MIN_SCROLL_VELOCITY_DP = 250f;
+    private static final long SCROLL_DIRECTION_DWELL_MILLIS = 150;
+    // Same physical model as android.widget.Scroller uses for flings
+    private static final float INCHES_PER_METER = 39.37f;
+    private static final float FLING_DECELERATION_FACTOR = 0.84f;
+
+    private static FabMetrics sMetrics;
+
+    private final Configuration mConfiguration;
+
+    final int sizeNormal;
+    final int sizeMini;
+    final int shadowSize;
+    final float shadowBlurRadius;
+    final float shadowOffsetY;
+    final int shadowColor;
+    final int scrollThreshold;
+    final float minScrollVelocity;
+    final float scrollDeceleration;
+    final int scrollHysteresis;
+    final long scrollDwellMillis;
+    final float elevation;
+
+    final int menuShadowOffset;
+    final int menuButtonSpacing;
+
+    final int colorNormal;
+    final int colorPressed;
+    final int colorRipple;
+    final int colorDisabled;
+
+    final int menuColorNormal;
+    final int menuColorSelected;
+    final int menuColorPressed;
+    final int menuColorRipple;
+
+    static FabMetrics get(Resources resources) {
+        FabMetrics metrics = sMetrics;
+        if (metrics == null || !metrics.mConfiguration.equals(resources.getConfiguration())) {
+            metrics = new FabMetrics(resources);
+            sMetrics = metrics;
+        }
+        return metrics;
+    }
+
+    private FabMetrics(Resources res) {
+        mConfiguration = new Configuration(res.getConfiguration());
+
+        sizeNormal = res.getDimensionPixelSize(R.dimen.fab_size_normal);
+        sizeMini = res.getDimensionPixelSize(R.dimen.fab_size_mini);
+        shadowSize = res.getDimensionPixelSize(R.dimen.fab_shadow_size);
+        shadowBlurRadius = res.getDimension(R.dimen.fab_shadow_blur_radius);
+        shadowOffsetY = res.getDimension(R.dimen.fab_shadow_offset_y);
+        shadowColor = res.getColor(R.color.fab_shadow);
+        scrollThreshold = res.getDimensionPixelOffset(R.dimen.fab_scroll_threshold);
+        float density = res.getDisplayMetrics().density;
+        minScrollVelocity = MIN_SCROLL_VELOCITY_DP * density;
+        float ppi = density * 160f;
+        float decelerationPerSecond = SensorManager.GRAVITY_EARTH * INCHES_PER_METER * ppi
+                * FLING_DECELERATION_FACTOR * ViewConfiguration.getScrollFriction();
+        scrollDeceleration = decelerationPerSecond / (1000f * 1000f);
+        scrollHysteresis = res.getDimensionPixelOffset(R.dimen.fab_scroll_hysteresis);
+        scrollDwellMillis = SCROLL_DIRECTION_DWELL_MILLIS;
+        elevation = res.getDimensionPixelSize(R.dimen.fab_elevation_lollipop);
+
+        menuShadowOffset = res.getDimensionPixelSize(R.dimen.fab_shadow_offset);
+        menuButtonSpacing = (int) (res.getDimension(R.dimen.fab_actions_spacing)
+                - res.getDimension(R.dimen.fab_shadow_radius)
+                - res.getDimension(R.dimen.fab_shadow_offset))
+                + menuShadowOffset;
+
+        colorNormal = res.getColor(R.color.material_blue_500);
+        colorPressed = res.getColor(R.color.material_blue_600);
+        colorRipple = res.getColor(android.R.color.white);
+        colorDisabled = res.getColor(android.R.color.darker_gray);
+
+        menuColorNormal = res.getColor(android.R.color.holo_blue_light);
+        menuColorSelected = res.getColor(android.R.color.holo_blue_light);
+        menuColorPressed = res.getColor(android.R.color.holo_blue_dark);
+        menuColorRipple = res.getColor(android.R.color.holo_blue_bright);
+    }
+
+    int getSize(int type) {
+        return type == FloatingActionButton.TYPE_NORMAL ? sizeNormal : sizeMini;
+    }
+}
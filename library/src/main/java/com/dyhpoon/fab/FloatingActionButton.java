@@ -1,10 +1,16 @@
 package com.dyhpoon.fab;
 
 import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.ColorStateList;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
 import android.graphics.Outline;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.LayerDrawable;
 import android.graphics.drawable.RippleDrawable;
@@ -13,7 +19,6 @@ import android.graphics.drawable.StateListDrawable;
 import android.graphics.drawable.shapes.OvalShape;
 import android.os.Build;
 import android.support.annotation.ColorRes;
-import android.support.annotation.DimenRes;
 import android.support.annotation.IntDef;
 import android.support.annotation.NonNull;
 import android.support.v7.widget.RecyclerView;
@@ -21,21 +26,13 @@ import android.util.AttributeSet;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewOutlineProvider;
-import android.view.ViewTreeObserver;
-import android.view.animation.AccelerateDecelerateInterpolator;
-import android.view.animation.Interpolator;
 import android.widget.AbsListView;
 import android.widget.ImageButton;
-import android.widget.ScrollView;
-
-import com.nineoldandroids.view.ViewHelper;
-import com.nineoldandroids.view.ViewPropertyAnimator;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 
 public class FloatingActionButton extends ImageButton {
-    private static final int TRANSLATE_DURATION_MILLIS = 200;
 
     @Retention(RetentionPolicy.SOURCE)
     @IntDef({TYPE_NORMAL, TYPE_MINI})
@@ -45,7 +42,48 @@ public class FloatingActionButton extends ImageButton {
     public static final int TYPE_NORMAL = 0;
     public static final int TYPE_MINI = 1;
 
-    private boolean mVisible;
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({RENDER_MODE_DRAWABLE, RENDER_MODE_CANVAS})
+    public @interface RENDER_MODE {
+    }
+
+    public static final int RENDER_MODE_DRAWABLE = 0;
+    /**
+     * Draws the oval and its shadow straight onto the canvas instead of using a background
+     * drawable, so color changes only need an invalidate. Ignored on Lollipop and above where
+     * the background also carries the ripple.
+     */
+    public static final int RENDER_MODE_CANVAS = 1;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({SCROLL_AXIS_VERTICAL, SCROLL_AXIS_HORIZONTAL})
+    public @interface SCROLL_AXIS {
+    }
+
+    public static final int SCROLL_AXIS_VERTICAL = 0;
+    public static final int SCROLL_AXIS_HORIZONTAL = 1;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef(flag = true, value = {EDGE_POLICY_NONE, EDGE_POLICY_SHOW_AT_START,
+            EDGE_POLICY_HIDE_AT_END, EDGE_POLICY_SHOW_WHEN_CONTENT_FITS})
+    public @interface EDGE_POLICY {
+    }
+
+    public static final int EDGE_POLICY_NONE = 0;
+    /**
+     * Keeps the button shown while the scroll container is at its start.
+     */
+    public static final int EDGE_POLICY_SHOW_AT_START = 1;
+    /**
+     * Hides the button once the end of the content is reached, so it does not cover the last
+     * item.
+     */
+    public static final int EDGE_POLICY_HIDE_AT_END = 1 << 1;
+    /**
+     * Keeps the button shown when the content fits without scrolling. Takes precedence over
+     * {@link #EDGE_POLICY_HIDE_AT_END}.
+     */
+    public static final int EDGE_POLICY_SHOW_WHEN_CONTENT_FITS = 1 << 2;
 
     protected int mColorNormal;
     protected int mColorPressed;
@@ -54,14 +92,26 @@ public class FloatingActionButton extends ImageButton {
 
     private boolean mShadow;
     private int mType;
+    private int mRenderMode;
+    private ScrollVisibilityHelper mScrollVisibility;
+
+    private FabMetrics mMetrics;
 
-    private int mShadowSize;
+    // Subtracted from every margin to make up for the shadow drawn inside the view. Tracked per
+    // view, params copied from the current ones already carry it.
+    private int mMarginCompensation;
 
-    private int mScrollThreshold;
+    private Editor mEditor;
+    // Number of edit() calls that were not applied yet
+    private int mEditDepth;
+    private boolean mBackgroundDirty;
 
-    private boolean mMarginsSet;
+    private final Paint mOvalPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF mOvalRect = new RectF();
+    private Drawable mShadowDrawable;
 
-    private final Interpolator mInterpolator = new AccelerateDecelerateInterpolator();
+    private RippleDrawable mRippleDrawable;
+    private int mRippleColor;
 
     public FloatingActionButton(Context context) {
         this(context, null);
@@ -80,27 +130,86 @@ public class FloatingActionButton extends ImageButton {
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-        int size = getDimension(
-                mType == TYPE_NORMAL ? R.dimen.fab_size_normal : R.dimen.fab_size_mini);
+        int size = mMetrics.getSize(mType);
         if (mShadow && !hasLollipopApi()) {
-            size += mShadowSize * 2;
-            setMarginsWithoutShadow();
+            size += mMetrics.shadowSize * 2;
         }
         setMeasuredDimension(size, size);
     }
 
+    @Override
+    public void setLayoutParams(ViewGroup.LayoutParams params) {
+        // Compensating before the params are applied avoids a second layout pass
+        setMarginsWithoutShadow(params);
+        super.setLayoutParams(params);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // Covers params assigned without going through setLayoutParams(); a layout is
+        // already pending for a freshly attached view
+        setMarginsWithoutShadow(getLayoutParams());
+        mScrollVisibility.onAttachedToWindow();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        mScrollVisibility.onDetachedFromWindow();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateCanvasGeometry(w, h);
+    }
+
+    @Override
+    protected void drawableStateChanged() {
+        super.drawableStateChanged();
+        if (isCanvasRenderMode()) {
+            invalidate();
+        }
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        if (isCanvasRenderMode()) {
+            if (mShadowDrawable != null) {
+                mShadowDrawable.draw(canvas);
+            }
+            mOvalPaint.setColor(getCurrentColor());
+            canvas.drawOval(mOvalRect, mOvalPaint);
+        }
+        super.onDraw(canvas);
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        FabMetrics metrics = FabMetrics.get(getResources());
+        if (metrics != mMetrics) {
+            mMetrics = metrics;
+            updateBackground();
+            setMarginsWithoutShadow(getLayoutParams());
+            requestLayout();
+        }
+    }
+
     private void init(Context context, AttributeSet attributeSet) {
-        mVisible = true;
-        mColorNormal = getColor(R.color.material_blue_500);
-        mColorPressed = getColor(R.color.material_blue_600);
-        mColorRipple = getColor(android.R.color.white);
-        mColorDisabled = getColor(android.R.color.darker_gray);
+        mMetrics = FabMetrics.get(getResources());
+        mScrollVisibility = new ScrollVisibilityHelper(this, mMetrics);
+        mColorNormal = mMetrics.colorNormal;
+        mColorPressed = mMetrics.colorPressed;
+        mColorRipple = mMetrics.colorRipple;
+        mColorDisabled = mMetrics.colorDisabled;
         mType = TYPE_NORMAL;
         mShadow = true;
-        mScrollThreshold = getResources().getDimensionPixelOffset(R.dimen.fab_scroll_threshold);
-        mShadowSize = getDimension(R.dimen.fab_shadow_size);
+        mRenderMode = RENDER_MODE_DRAWABLE;
         if (attributeSet != null) {
             initAttributes(context, attributeSet);
+            mScrollVisibility.readAttributes(context, attributeSet);
         }
         updateBackground();
     }
@@ -110,15 +219,17 @@ public class FloatingActionButton extends ImageButton {
         if (attr != null) {
             try {
                 mColorNormal = attr.getColor(R.styleable.FloatingActionButton_fab_colorNormal,
-                        getColor(R.color.material_blue_500));
+                        mColorNormal);
                 mColorPressed = attr.getColor(R.styleable.FloatingActionButton_fab_colorPressed,
-                        getColor(R.color.material_blue_600));
+                        mColorPressed);
                 mColorRipple = attr.getColor(R.styleable.FloatingActionButton_fab_colorRipple,
-                        getColor(android.R.color.white));
+                        mColorRipple);
                 mColorDisabled = attr.getColor(R.styleable.FloatingActionButton_fab_colorDisabled,
                     mColorDisabled);
                 mShadow = attr.getBoolean(R.styleable.FloatingActionButton_fab_shadow, true);
                 mType = attr.getInt(R.styleable.FloatingActionButton_fab_type, TYPE_NORMAL);
+                mRenderMode = attr.getInt(R.styleable.FloatingActionButton_fab_renderMode,
+                        RENDER_MODE_DRAWABLE);
             } finally {
                 attr.recycle();
             }
@@ -126,11 +237,39 @@ public class FloatingActionButton extends ImageButton {
     }
 
     protected void updateBackground() {
+        if (isCanvasRenderMode()) {
+            mShadowDrawable = mShadow ? createShadowDrawable() : null;
+            updateCanvasGeometry(getWidth(), getHeight());
+            setBackgroundCompat(null);
+            invalidate();
+            return;
+        }
+        mShadowDrawable = null;
+
+        Drawable background = FabDrawableCache.get(getResources(), mColorNormal, mColorPressed,
+                mColorDisabled, mType, mShadow);
+        if (background == null) {
+            background = createBackground();
+            FabDrawableCache.put(getResources(), mColorNormal, mColorPressed, mColorDisabled,
+                    mType, mShadow, background);
+        }
+        setBackgroundCompat(background);
+    }
+
+    private Drawable createBackground() {
         StateListDrawable drawable = new StateListDrawable();
         drawable.addState(new int[]{android.R.attr.state_pressed}, createDrawable(mColorPressed));
         drawable.addState(new int[]{-android.R.attr.state_enabled}, createDrawable(mColorDisabled));
         drawable.addState(new int[]{}, createDrawable(mColorNormal));
-        setBackgroundCompat(drawable);
+        return drawable;
+    }
+
+    @SuppressLint("NewApi")
+    private void updateRippleColor() {
+        if (mRippleDrawable != null && mRippleColor != mColorRipple) {
+            mRippleColor = mColorRipple;
+            mRippleDrawable.setColor(ColorStateList.valueOf(mRippleColor));
+        }
     }
 
     private Drawable createDrawable(int color) {
@@ -139,16 +278,43 @@ public class FloatingActionButton extends ImageButton {
         shapeDrawable.getPaint().setColor(color);
 
         if (mShadow && !hasLollipopApi()) {
-            Drawable shadowDrawable = getResources().getDrawable(mType == TYPE_NORMAL ? R.drawable.shadow
-                    : R.drawable.shadow_mini);
-            LayerDrawable layerDrawable = new LayerDrawable(new Drawable[]{shadowDrawable, shapeDrawable});
-            layerDrawable.setLayerInset(1, mShadowSize, mShadowSize, mShadowSize, mShadowSize);
+            LayerDrawable layerDrawable = new LayerDrawable(
+                    new Drawable[]{createShadowDrawable(), shapeDrawable});
+            int shadowSize = mMetrics.shadowSize;
+            layerDrawable.setLayerInset(1, shadowSize, shadowSize, shadowSize, shadowSize);
             return layerDrawable;
         } else {
             return shapeDrawable;
         }
     }
 
+    private Drawable createShadowDrawable() {
+        return new BitmapDrawable(getResources(), ShadowBitmapCache.get(mMetrics.getSize(mType),
+                mMetrics.shadowSize, mMetrics.shadowBlurRadius, mMetrics.shadowOffsetY,
+                mMetrics.shadowColor));
+    }
+
+    private void updateCanvasGeometry(int width, int height) {
+        int inset = mShadow && !hasLollipopApi() ? mMetrics.shadowSize : 0;
+        mOvalRect.set(inset, inset, width - inset, height - inset);
+        if (mShadowDrawable != null) {
+            mShadowDrawable.setBounds(0, 0, width, height);
+        }
+    }
+
+    private int getCurrentColor() {
+        if (isPressed()) {
+            return mColorPressed;
+        } else if (!isEnabled()) {
+            return mColorDisabled;
+        }
+        return mColorNormal;
+    }
+
+    private boolean isCanvasRenderMode() {
+        return mRenderMode == RENDER_MODE_CANVAS && !hasLollipopApi();
+    }
+
     private TypedArray getTypedArray(Context context, AttributeSet attributeSet, int[] attr) {
         return context.obtainStyledAttributes(attributeSet, attr, 0, 0);
     }
@@ -157,24 +323,21 @@ public class FloatingActionButton extends ImageButton {
         return getResources().getColor(id);
     }
 
-    private int getDimension(@DimenRes int id) {
-        return getResources().getDimensionPixelSize(id);
-    }
-
-    private void setMarginsWithoutShadow() {
-        if (!mMarginsSet) {
-            if (getLayoutParams() instanceof ViewGroup.MarginLayoutParams) {
-                ViewGroup.MarginLayoutParams layoutParams = (ViewGroup.MarginLayoutParams) getLayoutParams();
-                int leftMargin = layoutParams.leftMargin - mShadowSize;
-                int topMargin = layoutParams.topMargin - mShadowSize;
-                int rightMargin = layoutParams.rightMargin - mShadowSize;
-                int bottomMargin = layoutParams.bottomMargin - mShadowSize;
-                layoutParams.setMargins(leftMargin, topMargin, rightMargin, bottomMargin);
-
-                requestLayout();
-                mMarginsSet = true;
-            }
-        }
+    /**
+     * Brings the compensation in the margins in line with the current shadow.
+     */
+    private void setMarginsWithoutShadow(ViewGroup.LayoutParams params) {
+        if (!(params instanceof ViewGroup.MarginLayoutParams)) return;
+        int compensation = mShadow && !hasLollipopApi() ? mMetrics.shadowSize : 0;
+        int delta = compensation - mMarginCompensation;
+        if (delta == 0) return;
+        ViewGroup.MarginLayoutParams layoutParams = (ViewGroup.MarginLayoutParams) params;
+        int leftMargin = layoutParams.leftMargin - delta;
+        int topMargin = layoutParams.topMargin - delta;
+        int rightMargin = layoutParams.rightMargin - delta;
+        int bottomMargin = layoutParams.bottomMargin - delta;
+        layoutParams.setMargins(leftMargin, topMargin, rightMargin, bottomMargin);
+        mMarginCompensation = compensation;
     }
 
     @SuppressWarnings("deprecation")
@@ -184,23 +347,30 @@ public class FloatingActionButton extends ImageButton {
             float elevation;
             if (mShadow) {
                 elevation = getElevation() > 0.0f ? getElevation()
-                        : getDimension(R.dimen.fab_elevation_lollipop);
+                        : mMetrics.elevation;
             } else {
                 elevation = 0.0f;
             }
             setElevation(elevation);
-            RippleDrawable rippleDrawable = new RippleDrawable(new ColorStateList(new int[][]{{}},
-                    new int[]{mColorRipple}), drawable, null);
-            setOutlineProvider(new ViewOutlineProvider() {
-                @Override
-                public void getOutline(View view, Outline outline) {
-                    int size = getDimension(mType == TYPE_NORMAL ? R.dimen.fab_size_normal
-                        : R.dimen.fab_size_mini);
-                    outline.setOval(0, 0, size, size);
-                }
-            });
-            setClipToOutline(true);
-            setBackground(rippleDrawable);
+            if (mRippleDrawable == null) {
+                mRippleColor = mColorRipple;
+                mRippleDrawable = new RippleDrawable(ColorStateList.valueOf(mRippleColor),
+                        drawable, null);
+                mRippleDrawable.setId(0, android.R.id.background);
+            } else {
+                // Swap the content in place, the ripple and its color state list are kept
+                updateRippleColor();
+                drawable.setState(mRippleDrawable.getState());
+                mRippleDrawable.setDrawableByLayerId(android.R.id.background, drawable);
+                mRippleDrawable.invalidateSelf();
+            }
+            if (getOutlineProvider() != OvalOutlineProvider.INSTANCE) {
+                setOutlineProvider(OvalOutlineProvider.INSTANCE);
+                setClipToOutline(true);
+            }
+            if (getBackground() != mRippleDrawable) {
+                setBackground(mRippleDrawable);
+            }
         } else if (hasJellyBeanApi()) {
             setBackground(drawable);
         } else {
@@ -208,19 +378,39 @@ public class FloatingActionButton extends ImageButton {
         }
     }
 
-    private int getMarginBottom() {
-        int marginBottom = 0;
-        final ViewGroup.LayoutParams layoutParams = getLayoutParams();
-        if (layoutParams instanceof ViewGroup.MarginLayoutParams) {
-            marginBottom = ((ViewGroup.MarginLayoutParams) layoutParams).bottomMargin;
+    private void invalidateColors() {
+        if (isCanvasRenderMode()) {
+            invalidate();
+        } else {
+            invalidateBackground();
+        }
+    }
+
+    private void invalidateBackground() {
+        if (mEditDepth > 0) {
+            mBackgroundDirty = true;
+        } else {
+            updateBackground();
+        }
+    }
+
+    /**
+     * Starts a batch of property changes. The background is rebuilt at most once, when
+     * {@link Editor#apply()} is called. Edits may be nested, every {@code edit()} needs its own
+     * {@code apply()} and only the outermost one rebuilds the background.
+     */
+    public Editor edit() {
+        if (mEditor == null) {
+            mEditor = new Editor();
         }
-        return marginBottom;
+        mEditDepth++;
+        return mEditor;
     }
 
     public void setColorNormal(int color) {
         if (color != mColorNormal) {
             mColorNormal = color;
-            updateBackground();
+            invalidateColors();
         }
     }
 
@@ -235,7 +425,7 @@ public class FloatingActionButton extends ImageButton {
     public void setColorPressed(int color) {
         if (color != mColorPressed) {
             mColorPressed = color;
-            updateBackground();
+            invalidateColors();
         }
     }
 
@@ -250,7 +440,7 @@ public class FloatingActionButton extends ImageButton {
     public void setColorRipple(int color) {
         if (color != mColorRipple) {
             mColorRipple = color;
-            updateBackground();
+            updateRippleColor();
         }
     }
 
@@ -262,10 +452,28 @@ public class FloatingActionButton extends ImageButton {
         return mColorRipple;
     }
 
+    public void setColorDisabled(int color) {
+        if (color != mColorDisabled) {
+            mColorDisabled = color;
+            invalidateColors();
+        }
+    }
+
+    public void setColorDisabledResId(@ColorRes int colorResId) {
+        setColorDisabled(getColor(colorResId));
+    }
+
+    public int getColorDisabled() {
+        return mColorDisabled;
+    }
+
     public void setShadow(boolean shadow) {
         if (shadow != mShadow) {
             mShadow = shadow;
-            updateBackground();
+            invalidateBackground();
+            // The shadow changes the size of the view and its margin compensation
+            setMarginsWithoutShadow(getLayoutParams());
+            requestLayout();
         }
     }
 
@@ -276,7 +484,7 @@ public class FloatingActionButton extends ImageButton {
     public void setType(@TYPE int type) {
         if (type != mType) {
             mType = type;
-            updateBackground();
+            invalidateBackground();
         }
     }
 
@@ -285,8 +493,20 @@ public class FloatingActionButton extends ImageButton {
         return mType;
     }
 
+    public void setRenderMode(@RENDER_MODE int renderMode) {
+        if (renderMode != mRenderMode) {
+            mRenderMode = renderMode;
+            invalidateBackground();
+        }
+    }
+
+    @RENDER_MODE
+    public int getRenderMode() {
+        return mRenderMode;
+    }
+
     public boolean isVisible() {
-        return mVisible;
+        return mScrollVisibility.isVisible();
     }
 
     public void show() {
@@ -298,242 +518,260 @@ public class FloatingActionButton extends ImageButton {
     }
 
     public void show(boolean animate) {
-        toggle(true, animate, false);
+        mScrollVisibility.show(animate);
     }
 
     public void hide(boolean animate) {
-        toggle(false, animate, false);
-    }
-
-    private void toggle(final boolean visible, final boolean animate, boolean force) {
-        if (mVisible != visible || force) {
-            mVisible = visible;
-            int height = getHeight();
-            if (height == 0 && !force) {
-                ViewTreeObserver vto = getViewTreeObserver();
-                if (vto.isAlive()) {
-                    vto.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
-                        @Override
-                        public boolean onPreDraw() {
-                            ViewTreeObserver currentVto = getViewTreeObserver();
-                            if (currentVto.isAlive()) {
-                                currentVto.removeOnPreDrawListener(this);
-                            }
-                            toggle(visible, animate, true);
-                            return true;
-                        }
-                    });
-                    return;
-                }
-            }
-            int translationY = visible ? 0 : height + getMarginBottom();
-            if (animate) {
-                ViewPropertyAnimator.animate(this).setInterpolator(mInterpolator)
-                        .setDuration(TRANSLATE_DURATION_MILLIS)
-                        .translationY(translationY);
-            } else {
-                ViewHelper.setTranslationY(this, translationY);
-            }
-        }
+        mScrollVisibility.hide(animate);
     }
 
-    public void attachToListView(@NonNull AbsListView listView) {
-        attachToListView(listView, null, null);
+    /**
+     * When enabled, the button follows the attached scroll container one-to-one instead of
+     * animating in and out on every direction change, and snaps to shown or hidden once
+     * scrolling stops.
+     */
+    public void setQuickReturnEnabled(boolean quickReturn) {
+        mScrollVisibility.setQuickReturnEnabled(quickReturn);
     }
 
-    public void attachToListView(@NonNull AbsListView listView,
-                                 ScrollDirectionListener scrollDirectionListener) {
-        attachToListView(listView, scrollDirectionListener, null);
+    public boolean isQuickReturnEnabled() {
+        return mScrollVisibility.isQuickReturnEnabled();
     }
 
-    public void attachToRecyclerView(@NonNull RecyclerView recyclerView) {
-        attachToRecyclerView(recyclerView, null, null);
+    /**
+     * Sets the distance that has to be scrolled in one direction, including the predicted fling,
+     * before the button reacts to it. The distance is summed up over all scroll events since the
+     * last reversal, so it does not depend on the display refresh rate. Applies to scroll
+     * containers attached afterwards.
+     */
+    public void setScrollThreshold(int scrollThreshold) {
+        mScrollVisibility.setScrollThreshold(scrollThreshold);
     }
 
-    public void attachToRecyclerView(@NonNull RecyclerView recyclerView,
-                                     ScrollDirectionListener scrollDirectionListener) {
-        attachToRecyclerView(recyclerView, scrollDirectionListener, null);
+    /**
+     * Sets the velocity in pixels per second below which scrolling never changes the direction.
+     * Applies to scroll containers attached afterwards.
+     */
+    public void setMinScrollVelocity(float pixelsPerSecond) {
+        mScrollVisibility.setMinScrollVelocity(pixelsPerSecond);
     }
 
-    public void attachToScrollView(@NonNull ObservableScrollView scrollView) {
-        attachToScrollView(scrollView, null, null);
+    /**
+     * Configures how reluctant the button is to reverse a direction it reacted to. Applies to
+     * scroll containers attached afterwards.
+     *
+     * @param minReverseDistance distance in pixels that has to be scrolled in the opposite
+     *                           direction before it is reported
+     * @param minDwellMillis     time a direction is kept at least before it may be reversed
+     */
+    public void setScrollHysteresis(int minReverseDistance, long minDwellMillis) {
+        mScrollVisibility.setScrollHysteresis(minReverseDistance, minDwellMillis);
     }
 
-    public void attachToScrollView(@NonNull ObservableScrollView scrollView,
-                                   ScrollDirectionListener scrollDirectionListener) {
-        attachToScrollView(scrollView, scrollDirectionListener, null);
+    /**
+     * When enabled, scroll events are summed up and the direction is evaluated once per frame
+     * through {@link android.view.Choreographer}, instead of on every event. Requires Jelly Bean
+     * or above and applies to scroll containers attached afterwards.
+     */
+    public void setFrameAlignedScrollDispatch(boolean frameAligned) {
+        mScrollVisibility.setFrameAlignedScrollDispatch(frameAligned);
     }
 
-    public void attachToListView(@NonNull AbsListView listView,
-                                 ScrollDirectionListener scrollDirectionListener,
-                                 AbsListView.OnScrollListener onScrollListener) {
-        AbsListViewScrollDetectorImpl scrollDetector = new AbsListViewScrollDetectorImpl();
-        scrollDetector.setScrollDirectionListener(scrollDirectionListener);
-        scrollDetector.setOnScrollListener(onScrollListener);
-        scrollDetector.setListView(listView);
-        scrollDetector.setScrollThreshold(mScrollThreshold);
-        listView.setOnScrollListener(scrollDetector);
+    public boolean isFrameAlignedScrollDispatch() {
+        return mScrollVisibility.isFrameAlignedScrollDispatch();
     }
 
-    public void attachToRecyclerView(@NonNull RecyclerView recyclerView,
-                                     ScrollDirectionListener scrollDirectionlistener,
-                                     RecyclerView.OnScrollListener onScrollListener) {
-        RecyclerViewScrollDetectorImpl scrollDetector = new RecyclerViewScrollDetectorImpl();
-        scrollDetector.setScrollDirectionListener(scrollDirectionlistener);
-        scrollDetector.setOnScrollListener(onScrollListener);
-        scrollDetector.setScrollThreshold(mScrollThreshold);
-        recyclerView.setOnScrollListener(scrollDetector);
+    /**
+     * Selects the scroll axis that is observed and along which the button is hidden: down for
+     * vertical scrolling, off the right edge for horizontal scrolling. The observed axis applies
+     * to scroll containers attached afterwards.
+     */
+    public void setScrollAxis(@SCROLL_AXIS int axis) {
+        mScrollVisibility.setScrollAxis(axis);
     }
 
-    public void attachToScrollView(@NonNull ObservableScrollView scrollView,
-                                   ScrollDirectionListener scrollDirectionListener,
-                                   ObservableScrollView.OnScrollChangedListener onScrollChangedListener) {
-        ScrollViewScrollDetectorImpl scrollDetector = new ScrollViewScrollDetectorImpl();
-        scrollDetector.setScrollDirectionListener(scrollDirectionListener);
-        scrollDetector.setOnScrollChangedListener(onScrollChangedListener);
-        scrollDetector.setScrollThreshold(mScrollThreshold);
-        scrollView.setOnScrollChangedListener(scrollDetector);
+    @SCROLL_AXIS
+    public int getScrollAxis() {
+        return mScrollVisibility.getScrollAxis();
     }
 
-    private boolean hasLollipopApi() {
-        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP;
+    /**
+     * Overrides the scroll direction near the edges of the attached scroll container.
+     *
+     * @param policy combination of {@link #EDGE_POLICY_SHOW_AT_START},
+     *               {@link #EDGE_POLICY_HIDE_AT_END} and
+     *               {@link #EDGE_POLICY_SHOW_WHEN_CONTENT_FITS}
+     */
+    public void setEdgePolicy(@EDGE_POLICY int policy) {
+        mScrollVisibility.setEdgePolicy(policy);
     }
 
-    private boolean hasJellyBeanApi() {
-        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+    @EDGE_POLICY
+    public int getEdgePolicy() {
+        return mScrollVisibility.getEdgePolicy();
     }
 
-    private class AbsListViewScrollDetectorImpl extends AbsListViewScrollDetector {
-        private ScrollDirectionListener mScrollDirectionListener;
-        private AbsListView.OnScrollListener mOnScrollListener;
+    /**
+     * @return how many direction reversals of the attached scroll container were
+     * suppressed by the hysteresis
+     */
+    public int getSuppressedToggleCount() {
+        return mScrollVisibility.getSuppressedToggleCount();
+    }
 
-        private void setScrollDirectionListener(ScrollDirectionListener scrollDirectionListener) {
-            mScrollDirectionListener = scrollDirectionListener;
-        }
+    /**
+     * @return how many direction changes of the attached scroll container were reported
+     */
+    public int getDirectionChangeCount() {
+        return mScrollVisibility.getDirectionChangeCount();
+    }
 
-        public void setOnScrollListener(AbsListView.OnScrollListener onScrollListener) {
-            mOnScrollListener = onScrollListener;
-        }
+    public ScrollCoordinator.Binding attachToListView(@NonNull AbsListView listView) {
+        return attachToListView(listView, null, null);
+    }
 
-        @Override
-        public void onScrollDown() {
-            show();
-            if (mScrollDirectionListener != null) {
-                mScrollDirectionListener.onScrollDown();
-            }
-        }
+    public ScrollCoordinator.Binding attachToListView(@NonNull AbsListView listView,
+                                                      ScrollDirectionListener scrollDirectionListener) {
+        return attachToListView(listView, scrollDirectionListener, null);
+    }
 
-        @Override
-        public void onScrollUp() {
-            hide();
-            if (mScrollDirectionListener != null) {
-                mScrollDirectionListener.onScrollUp();
-            }
-        }
+    public ScrollCoordinator.Binding attachToRecyclerView(@NonNull RecyclerView recyclerView) {
+        return attachToRecyclerView(recyclerView, null, null);
+    }
 
-        @Override
-        public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount,
-                             int totalItemCount) {
-            if (mOnScrollListener != null) {
-                mOnScrollListener.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
-            }
+    public ScrollCoordinator.Binding attachToRecyclerView(@NonNull RecyclerView recyclerView,
+                                                          ScrollDirectionListener scrollDirectionListener) {
+        return attachToRecyclerView(recyclerView, scrollDirectionListener, null);
+    }
 
-            super.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
-        }
+    public ScrollCoordinator.Binding attachToScrollView(@NonNull ObservableScrollView scrollView) {
+        return attachToScrollView(scrollView, null, null);
+    }
 
-        @Override
-        public void onScrollStateChanged(AbsListView view, int scrollState) {
-            if (mOnScrollListener != null) {
-                mOnScrollListener.onScrollStateChanged(view, scrollState);
-            }
+    public ScrollCoordinator.Binding attachToScrollView(@NonNull ObservableScrollView scrollView,
+                                                        ScrollDirectionListener scrollDirectionListener) {
+        return attachToScrollView(scrollView, scrollDirectionListener, null);
+    }
 
-            super.onScrollStateChanged(view, scrollState);
-        }
+    public ScrollCoordinator.Binding attachToListView(@NonNull AbsListView listView,
+                                                      ScrollDirectionListener scrollDirectionListener,
+                                                      AbsListView.OnScrollListener onScrollListener) {
+        return mScrollVisibility.attachToListView(listView, scrollDirectionListener, onScrollListener);
     }
 
-    private class RecyclerViewScrollDetectorImpl extends RecyclerViewScrollDetector {
-        private ScrollDirectionListener mScrollDirectionListener;
-        private RecyclerView.OnScrollListener mOnScrollListener;
+    public ScrollCoordinator.Binding attachToRecyclerView(@NonNull RecyclerView recyclerView,
+                                                          ScrollDirectionListener scrollDirectionlistener,
+                                                          RecyclerView.OnScrollListener onScrollListener) {
+        return mScrollVisibility.attachToRecyclerView(recyclerView, scrollDirectionlistener,
+                onScrollListener);
+    }
 
-        private void setScrollDirectionListener(ScrollDirectionListener scrollDirectionListener) {
-            mScrollDirectionListener = scrollDirectionListener;
-        }
+    public ScrollCoordinator.Binding attachToScrollView(@NonNull ObservableScrollView scrollView,
+                                                        ScrollDirectionListener scrollDirectionListener,
+                                                        ObservableScrollView.OnScrollChangedListener onScrollChangedListener) {
+        return mScrollVisibility.attachToScrollView(scrollView, scrollDirectionListener,
+                onScrollChangedListener);
+    }
 
-        public void setOnScrollListener(RecyclerView.OnScrollListener onScrollListener) {
-            mOnScrollListener = onScrollListener;
-        }
+    /**
+     * Attaches to a view that is not an {@link AbsListView}, {@link RecyclerView} or
+     * {@link ObservableScrollView}, e.g. a NestedScrollView or a WebView. Its
+     * {@link View#getScrollY()} is checked whenever something in the window scrolls.
+     */
+    public ScrollCoordinator.Binding attachToView(@NonNull View view) {
+        return attachToView(view, null);
+    }
 
-        @Override
-        public void onScrollDown() {
-            show();
-            if (mScrollDirectionListener != null) {
-                mScrollDirectionListener.onScrollDown();
-            }
-        }
+    public ScrollCoordinator.Binding attachToView(@NonNull View view,
+                                                  ScrollDirectionListener scrollDirectionListener) {
+        return mScrollVisibility.attachToView(view, scrollDirectionListener);
+    }
 
-        @Override
-        public void onScrollUp() {
-            hide();
-            if (mScrollDirectionListener != null) {
-                mScrollDirectionListener.onScrollUp();
-            }
-        }
+    /**
+     * Detaches from the scroll container of the last {@code attachTo*} call, including the
+     * listeners that were passed to it.
+     */
+    public void detachFromScrollContainer() {
+        mScrollVisibility.detach();
+    }
 
-        @Override
-        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
-            if (mOnScrollListener != null) {
-                mOnScrollListener.onScrolled(recyclerView, dx, dy);
-            }
+    /**
+     * When enabled, scroll containers attached afterwards only keep a weak reference to this
+     * view, so a container that outlives it does not keep it in memory. Listeners passed to
+     * the {@code attachTo*} methods are still held strongly.
+     */
+    public void setWeakScrollBinding(boolean weak) {
+        mScrollVisibility.setWeakScrollBinding(weak);
+    }
 
-            super.onScrolled(recyclerView, dx, dy);
-        }
+    public boolean isWeakScrollBinding() {
+        return mScrollVisibility.isWeakScrollBinding();
+    }
 
-        @Override
-        public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
-            if (mOnScrollListener != null) {
-                mOnScrollListener.onScrollStateChanged(recyclerView, newState);
-            }
+    ScrollTarget getScrollTarget() {
+        return mScrollVisibility.getScrollTarget();
+    }
+
+    private boolean hasLollipopApi() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP;
+    }
+
+    private boolean hasJellyBeanApi() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static class OvalOutlineProvider extends ViewOutlineProvider {
+        static final OvalOutlineProvider INSTANCE = new OvalOutlineProvider();
 
-            super.onScrollStateChanged(recyclerView, newState);
+        @Override
+        public void getOutline(View view, Outline outline) {
+            outline.setOval(0, 0, view.getWidth(), view.getHeight());
         }
     }
 
-    private class ScrollViewScrollDetectorImpl extends ScrollViewScrollDetector {
-        private ScrollDirectionListener mScrollDirectionListener;
+    public final class Editor {
+
+        private Editor() {
+        }
 
-        private ObservableScrollView.OnScrollChangedListener mOnScrollChangedListener;
+        public Editor setColorNormal(int color) {
+            FloatingActionButton.this.setColorNormal(color);
+            return this;
+        }
 
-        private void setScrollDirectionListener(ScrollDirectionListener scrollDirectionListener) {
-            mScrollDirectionListener = scrollDirectionListener;
+        public Editor setColorPressed(int color) {
+            FloatingActionButton.this.setColorPressed(color);
+            return this;
         }
 
-        public void setOnScrollChangedListener(ObservableScrollView.OnScrollChangedListener onScrollChangedListener) {
-            mOnScrollChangedListener = onScrollChangedListener;
+        public Editor setColorRipple(int color) {
+            FloatingActionButton.this.setColorRipple(color);
+            return this;
         }
 
-        @Override
-        public void onScrollDown() {
-            show();
-            if (mScrollDirectionListener != null) {
-                mScrollDirectionListener.onScrollDown();
-            }
+        public Editor setColorDisabled(int color) {
+            FloatingActionButton.this.setColorDisabled(color);
+            return this;
         }
 
-        @Override
-        public void onScrollUp() {
-            hide();
-            if (mScrollDirectionListener != null) {
-                mScrollDirectionListener.onScrollUp();
-            }
+        public Editor setShadow(boolean shadow) {
+            FloatingActionButton.this.setShadow(shadow);
+            return this;
         }
 
-        @Override
-        public void onScrollChanged(ScrollView who, int l, int t, int oldl, int oldt) {
-            if (mOnScrollChangedListener != null) {
-                mOnScrollChangedListener.onScrollChanged(who, l, t, oldl, oldt);
-            }
+        public Editor setType(@TYPE int type) {
+            FloatingActionButton.this.setType(type);
+            return this;
+        }
 
-            super.onScrollChanged(who, l, t, oldl, oldt);
+        public void apply() {
+            if (mEditDepth == 0) return;
+            mEditDepth--;
+            if (mEditDepth == 0 && mBackgroundDirty) {
+                mBackgroundDirty = false;
+                updateBackground();
+            }
         }
     }
-}
\ No newline at end of file
+}
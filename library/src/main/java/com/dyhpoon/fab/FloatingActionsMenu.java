@@ -1,28 +1,40 @@
 package com.dyhpoon.fab;
 
-import android.animation.AnimatorSet;
-import android.animation.ObjectAnimator;
+import android.animation.ValueAnimator;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
+import android.content.res.XmlResourceParser;
 import android.graphics.drawable.Drawable;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.os.Parcel;
 import android.os.Parcelable;
-import android.support.annotation.ColorRes;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.IntDef;
+import android.support.annotation.MenuRes;
 import android.support.annotation.NonNull;
+import android.support.annotation.StringRes;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
+import android.util.Xml;
+import android.view.InflateException;
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.ViewTreeObserver;
-import android.view.animation.AccelerateDecelerateInterpolator;
 import android.view.animation.DecelerateInterpolator;
 import android.view.animation.Interpolator;
+import android.view.animation.LinearInterpolator;
 import android.view.animation.OvershootInterpolator;
 import android.widget.AbsListView;
-import android.widget.ScrollView;
 
-import com.nineoldandroids.view.ViewHelper;
-import com.nineoldandroids.view.ViewPropertyAnimator;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Created by darrenpoon on 5/2/15.
@@ -31,9 +43,21 @@ public class FloatingActionsMenu extends ViewGroup {
 
     public static final int EXPAND_UP = 0;
     public static final int EXPAND_DOWN = 1;
+    public static final int EXPAND_LEFT = 2;
+    public static final int EXPAND_RIGHT = 3;
+    // Arc from above the menu button to its left, for a menu in the bottom right corner
+    public static final int EXPAND_QUARTER_ARC = 4;
+    // Arc from the left of the menu button over the top to its right
+    public static final int EXPAND_HALF_ARC = 5;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({EXPAND_UP, EXPAND_DOWN, EXPAND_LEFT, EXPAND_RIGHT, EXPAND_QUARTER_ARC, EXPAND_HALF_ARC})
+    public @interface EXPAND_DIRECTION {
+    }
 
     private static final int ANIMATION_DURATION_TOGGLE = 300;
-    private static final int ANIMATION_DURATION_BOUNCE = 200;
+    // left, top, right, bottom and visibility of each child
+    private static final int BOUNDS_STRIDE = 5;
 
     private Drawable mMenuSelectedIcon;
     private Drawable mMenuUnSelectedIcon;
@@ -45,19 +69,63 @@ public class FloatingActionsMenu extends ViewGroup {
     private int mExpandDirection;
 
     private boolean mExpanded;
-    private boolean mVisible;
+    private ScrollVisibilityHelper mScrollVisibility;
+
+    // One animator per direction drives all buttons, each from 0 to 1
+    private final ValueAnimator mExpandAnimation = ValueAnimator.ofFloat(0f, 1f);
+    private final ValueAnimator mCollapseAnimation = ValueAnimator.ofFloat(0f, 1f);
+    private int mStaggerMillis;
+
+    // Buttons in layout order, starting next to the menu button, and their collapsed offsets
+    private View[] mAnimatedButtons = new View[0];
+    private float[] mCollapsedTranslationsX = new float[0];
+    private float[] mCollapsedTranslationsY = new float[0];
+    private int mAnimatedButtonCount;
+
+    private int[] mChildBounds = new int[0];
+    // The children the bounds were computed for, by index
+    private View[] mGeometryChildren = new View[0];
+    private int mGeometryChildCount;
+    private int mLayoutWidth;
+    private int mLayoutHeight;
+    private boolean mGeometryDirty = true;
+
+    // Items declared through a menu, their buttons are only created when first needed
+    private final List<Item> mItems = new ArrayList<Item>();
+    private OnItemClickListener mOnItemClickListener;
+    private boolean mPrefetchItems;
+    private boolean mPrefetchScheduled;
+    // Set while freshly created buttons wait for their first layout before expanding
+    private boolean mExpandOnLayout;
+
+    private final MessageQueue.IdleHandler mPrefetchHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            mPrefetchScheduled = false;
+            materializeItems();
+            return false;
+        }
+    };
 
-    private final Interpolator mInterpolator = new AccelerateDecelerateInterpolator();
-    private final AnimatorSet mExpandAnimation = new AnimatorSet().setDuration(ANIMATION_DURATION_TOGGLE);
-    private final AnimatorSet mCollapseAnimation = new AnimatorSet().setDuration(ANIMATION_DURATION_TOGGLE);
+    private final OnClickListener mItemClickListener = new OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            Item item = (Item) v.getTag(R.id.fab_menu_item);
+            if (mOnItemClickListener != null) {
+                mOnItemClickListener.onItemClick(item);
+            }
+            collapse();
+        }
+    };
 
     private FloatingActionButton mMenuButton;
 
     private int mButtonSpacing;
     private int mMaxButtonWidth;
-    private int mButtonsCount;
+    private int mMaxButtonHeight;
+    private int mArcRadius;
     private int mShadowOffset;
-    private int mScrollThreshold;
+    private FabMetrics mMetrics;
 
     private OnFloatingActionsMenuUpdateListener mListener;
 
@@ -67,6 +135,10 @@ public class FloatingActionsMenu extends ViewGroup {
         void onMenuCollapsed();
     }
 
+    public interface OnItemClickListener {
+        void onItemClick(Item item);
+    }
+
     public FloatingActionsMenu(Context context) {
         this(context, null);
     }
@@ -82,26 +154,76 @@ public class FloatingActionsMenu extends ViewGroup {
     }
 
     private void init(Context context, AttributeSet attributeSet) {
-        mVisible = true;
-        mScrollThreshold = getResources().getDimensionPixelOffset(R.dimen.fab_scroll_threshold);
-        mShadowOffset = getResources().getDimensionPixelSize(R.dimen.fab_shadow_offset);
-        mButtonSpacing = (int) (getResources().getDimension(R.dimen.fab_actions_spacing)
-                - getResources().getDimension(R.dimen.fab_shadow_radius)
-                - getResources().getDimension(R.dimen.fab_shadow_offset))
-                + mShadowOffset;
+        mMetrics = FabMetrics.get(getResources());
+        mShadowOffset = mMetrics.menuShadowOffset;
+        mButtonSpacing = mMetrics.menuButtonSpacing;
+        mScrollVisibility = new ScrollVisibilityHelper(this, mMetrics);
+        mScrollVisibility.readAttributes(context, attributeSet);
 
         TypedArray attr = context.obtainStyledAttributes(attributeSet, R.styleable.FloatingActionsMenu, 0, 0);
         mMenuSelectedIcon = attr.getDrawable(R.styleable.FloatingActionsMenu_fab_menuButtonSelectedSrc);
         mMenuUnSelectedIcon = attr.getDrawable(R.styleable.FloatingActionsMenu_fab_menuButtonUnSelectedSrc);
-        mMenuButtonColorNormal = attr.getColor(R.styleable.FloatingActionsMenu_fab_menuButtonColorNormal, getColor(android.R.color.holo_blue_light));
-        mMenuButtonColorSelected = attr.getColor(R.styleable.FloatingActionsMenu_fab_menuButtonColorSelected, getColor(android.R.color.holo_blue_light));
-        mMenuButtonColorPressed = attr.getColor(R.styleable.FloatingActionsMenu_fab_menuButtonColorPressed, getColor(android.R.color.holo_blue_dark));
-        mMenuButtonColorRipple = attr.getColor(R.styleable.FloatingActionsMenu_fab_menuButtonColorRipple, getColor(android.R.color.holo_blue_bright));
-        mMenuButtonColorDisabled = attr.getColor(R.styleable.FloatingActionsMenu_fab_menuButtonColorDisabled, getColor(android.R.color.darker_gray));
+        mMenuButtonColorNormal = attr.getColor(R.styleable.FloatingActionsMenu_fab_menuButtonColorNormal, mMetrics.menuColorNormal);
+        mMenuButtonColorSelected = attr.getColor(R.styleable.FloatingActionsMenu_fab_menuButtonColorSelected, mMetrics.menuColorSelected);
+        mMenuButtonColorPressed = attr.getColor(R.styleable.FloatingActionsMenu_fab_menuButtonColorPressed, mMetrics.menuColorPressed);
+        mMenuButtonColorRipple = attr.getColor(R.styleable.FloatingActionsMenu_fab_menuButtonColorRipple, mMetrics.menuColorRipple);
+        mMenuButtonColorDisabled = attr.getColor(R.styleable.FloatingActionsMenu_fab_menuButtonColorDisabled, mMetrics.colorDisabled);
         mExpandDirection = attr.getInt(R.styleable.FloatingActionsMenu_fab_expandDirection, EXPAND_UP);
+        mStaggerMillis = Math.max(0, attr.getInt(R.styleable.FloatingActionsMenu_fab_animationStagger, 0));
+        mPrefetchItems = attr.getBoolean(R.styleable.FloatingActionsMenu_fab_prefetchItems, false);
+        int menuRes = attr.getResourceId(R.styleable.FloatingActionsMenu_fab_menu, 0);
         attr.recycle();
 
         createMenuButton(context);
+        initAnimations();
+        if (menuRes != 0) {
+            inflateMenu(menuRes);
+        }
+    }
+
+    private void initAnimations() {
+        Interpolator linear = new LinearInterpolator();
+        mExpandAnimation.setInterpolator(linear);
+        mExpandAnimation.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                applyAnimationFraction(animation.getAnimatedFraction(), true);
+            }
+        });
+        mCollapseAnimation.setInterpolator(linear);
+        mCollapseAnimation.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                applyAnimationFraction(animation.getAnimatedFraction(), false);
+            }
+        });
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mScrollVisibility.onAttachedToWindow();
+        schedulePrefetch();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        mScrollVisibility.onDetachedFromWindow();
+        cancelPrefetch();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        FabMetrics metrics = FabMetrics.get(getResources());
+        if (metrics != mMetrics) {
+            mMetrics = metrics;
+            mShadowOffset = mMetrics.menuShadowOffset;
+            mButtonSpacing = mMetrics.menuButtonSpacing;
+            mGeometryDirty = true;
+            requestLayout();
+        }
     }
 
     @Override
@@ -111,8 +233,11 @@ public class FloatingActionsMenu extends ViewGroup {
         int width = 0;
         int height = 0;
         mMaxButtonWidth = 0;
+        mMaxButtonHeight = 0;
+        int buttonCount = 0;
 
-        for (int i = 0; i < mButtonsCount; i++) {
+        final int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
             View child = getChildAt(i);
 
             if (child.getVisibility() == GONE) {
@@ -120,32 +245,175 @@ public class FloatingActionsMenu extends ViewGroup {
             }
 
             mMaxButtonWidth = Math.max(mMaxButtonWidth, child.getMeasuredWidth());
+            mMaxButtonHeight = Math.max(mMaxButtonHeight, child.getMeasuredHeight());
+            width += child.getMeasuredWidth();
+            width = adjustForOvershoot(width);
             height += child.getMeasuredHeight();
             height = adjustForOvershoot(height);
+            if (child != mMenuButton) buttonCount++;
         }
 
-        height += mButtonSpacing * getChildCount();
-        width += mMaxButtonWidth + (mShadowOffset * 2);
+        switch (mExpandDirection) {
+            case EXPAND_LEFT:
+            case EXPAND_RIGHT:
+                width += mButtonSpacing * getChildCount();
+                height = mMaxButtonHeight + (mShadowOffset * 2);
+                break;
+            case EXPAND_QUARTER_ARC:
+            case EXPAND_HALF_ARC:
+                mArcRadius = computeArcRadius(buttonCount);
+                int extent = adjustForOvershoot(mArcRadius);
+                width = (mExpandDirection == EXPAND_HALF_ARC ? extent * 2 : extent)
+                        + mMaxButtonWidth + (mShadowOffset * 2);
+                height = extent + mMaxButtonHeight + (mShadowOffset * 2);
+                break;
+            default:
+                height += mButtonSpacing * getChildCount();
+                width = mMaxButtonWidth + (mShadowOffset * 2);
+                break;
+        }
 
         setMeasuredDimension(width, height);
     }
 
+    /**
+     * Returns the distance between the centers of the menu button and the buttons on the arc,
+     * large enough that neighbouring buttons do not overlap.
+     */
+    private int computeArcRadius(int buttonCount) {
+        int size = Math.max(mMaxButtonWidth, mMaxButtonHeight) + mButtonSpacing;
+        if (buttonCount < 2) return size;
+        double step = getArcSpan() / (buttonCount - 1);
+        return Math.max(size, (int) Math.ceil(size / (2 * Math.sin(step / 2))));
+    }
+
+    private double getArcSpan() {
+        return mExpandDirection == EXPAND_HALF_ARC ? Math.PI : Math.PI / 2;
+    }
+
     private int adjustForOvershoot(int dimension) {
         return dimension * 12 / 10;
     }
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        int width = r - l;
+        int height = b - t;
+        if (mGeometryDirty || width != mLayoutWidth || height != mLayoutHeight
+                || hasChildGeometryChanged()) {
+            computeGeometry(width, height);
+            mLayoutWidth = width;
+            mLayoutHeight = height;
+            mGeometryDirty = false;
+        }
+
+        int[] bounds = mChildBounds;
+        final int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            final View child = getChildAt(i);
+            if (child.getVisibility() == GONE) continue;
+
+            int offset = i * BOUNDS_STRIDE;
+            child.layout(bounds[offset], bounds[offset + 1], bounds[offset + 2], bounds[offset + 3]);
+        }
+
+        if (mExpandOnLayout) {
+            mExpandOnLayout = false;
+            mExpandAnimation.setDuration(getToggleDuration());
+            mExpandAnimation.start();
+        }
+    }
+
+    private boolean hasChildGeometryChanged() {
+        final int childCount = getChildCount();
+        if (mGeometryChildCount != childCount) return true;
+        int[] bounds = mChildBounds;
+        View[] children = mGeometryChildren;
+        for (int i = 0; i < childCount; i++) {
+            final View child = getChildAt(i);
+            int offset = i * BOUNDS_STRIDE;
+            if (child != children[i] || child.getVisibility() != bounds[offset + 4]) {
+                return true;
+            }
+            // No bounds are computed for gone children
+            if (child.getVisibility() != GONE
+                    && (child.getMeasuredWidth() != bounds[offset + 2] - bounds[offset]
+                    || child.getMeasuredHeight() != bounds[offset + 3] - bounds[offset + 1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the bounds of all children and their collapsed offsets. Only runs when the size
+     * of the menu, the children, their order, measurements or visibility, or the expand direction changed,
+     * so unrelated layout passes neither move the buttons nor interrupt an animation. The
+     * animations only interpolate the offsets computed here.
+     */
+    private void computeGeometry(int width, int height) {
+        final int childCount = getChildCount();
+        if (mChildBounds.length < childCount * BOUNDS_STRIDE) {
+            mChildBounds = new int[childCount * BOUNDS_STRIDE];
+        }
+        if (mGeometryChildren.length < childCount) {
+            mGeometryChildren = new View[childCount];
+        }
+        for (int i = 0; i < childCount; i++) {
+            View child = getChildAt(i);
+            mGeometryChildren[i] = child;
+            mChildBounds[i * BOUNDS_STRIDE + 4] = child.getVisibility();
+        }
+        // Do not keep removed children reachable
+        for (int i = childCount; i < mGeometryChildCount; i++) {
+            mGeometryChildren[i] = null;
+        }
+        mGeometryChildCount = childCount;
+
+        ensureAnimationCapacity(childCount);
+        int previousAnimatedCount = mAnimatedButtonCount;
+        mAnimatedButtonCount = 0;
+        switch (mExpandDirection) {
+            case EXPAND_LEFT:
+            case EXPAND_RIGHT:
+                computeHorizontalGeometry(width, height);
+                break;
+            case EXPAND_QUARTER_ARC:
+            case EXPAND_HALF_ARC:
+                computeArcGeometry(width, height);
+                break;
+            default:
+                computeVerticalGeometry(width, height);
+                break;
+        }
+        // Do not keep removed buttons reachable
+        for (int i = mAnimatedButtonCount; i < previousAnimatedCount; i++) {
+            mAnimatedButtons[i] = null;
+        }
+
+        if (!mExpandAnimation.isRunning() && !mCollapseAnimation.isRunning()) {
+            // Buttons created by expand() start collapsed and are animated once laid out
+            boolean expanded = mExpanded && !mExpandOnLayout;
+            for (int i = 0; i < mAnimatedButtonCount; i++) {
+                View button = mAnimatedButtons[i];
+                button.setTranslationX(expanded ? 0f : mCollapsedTranslationsX[i]);
+                button.setTranslationY(expanded ? 0f : mCollapsedTranslationsY[i]);
+                button.setAlpha(expanded ? 1f : 0f);
+            }
+        }
+    }
+
+    private void computeVerticalGeometry(int width, int height) {
         boolean expandUp = mExpandDirection == EXPAND_UP;
 
         final int adjustShadowOffsetX = -mShadowOffset;
         final int adjustShadowOffsetY = (expandUp) ? -mShadowOffset : mShadowOffset;
 
-        int menuButtonY = expandUp ? b - t - mMenuButton.getMeasuredHeight() : 0;
+        int menuButtonY = expandUp ? height - mMenuButton.getMeasuredHeight() : 0;
         // Ensure mMenuButton is centered on the line where the buttons should be
-        int buttonsHorizontalCenter = r - l - mMaxButtonWidth / 2; // mMaxButtonWidth / 2??
+        int buttonsHorizontalCenter = width - mMaxButtonWidth / 2; // mMaxButtonWidth / 2??
         int menuButtonLeft = buttonsHorizontalCenter - mMenuButton.getMeasuredWidth() / 2;
-        mMenuButton.layout(
+        setChildBounds(indexOfChild(mMenuButton),
                 menuButtonLeft + adjustShadowOffsetX,
                 menuButtonY + adjustShadowOffsetY,
                 menuButtonLeft + mMenuButton.getMeasuredWidth() + adjustShadowOffsetX,
@@ -155,42 +423,134 @@ public class FloatingActionsMenu extends ViewGroup {
                 menuButtonY - mButtonSpacing :
                 menuButtonY + mMenuButton.getMeasuredHeight() + mButtonSpacing;
 
-        for (int i = mButtonsCount - 1; i >= 0; i--) {
+        for (int i = getChildCount() - 1; i >= 0; i--) {
             final View child = getChildAt(i);
 
             if (child == mMenuButton || child.getVisibility() == GONE) continue;
 
             int childX = buttonsHorizontalCenter - child.getMeasuredWidth() / 2;
             int childY = expandUp ? nextY - child.getMeasuredHeight() : nextY;
-            child.layout(
+            setChildBounds(i,
                     childX + adjustShadowOffsetX,
                     childY + adjustShadowOffsetY,
                     childX + child.getMeasuredWidth() + adjustShadowOffsetX,
                     childY + child.getMeasuredHeight() + adjustShadowOffsetY);
-
-            float collapsedTranslation = menuButtonY - childY;
-            float expandedTranslation = 0f;
-
-            child.setTranslationY(mExpanded ? expandedTranslation : collapsedTranslation);
-            child.setAlpha(mExpanded ? 1f : 0f);
-
-            LayoutParams params = (LayoutParams) child.getLayoutParams();
-            params.mCollapseDir.setFloatValues(expandedTranslation, collapsedTranslation);
-            params.mExpandDir.setFloatValues(collapsedTranslation, expandedTranslation);
-            params.setAnimationsTarget(child);
+            addAnimatedButton(child, 0f, menuButtonY - childY);
 
             nextY = expandUp ?
                     childY - mButtonSpacing :
                     childY + child.getMeasuredHeight() + mButtonSpacing;
         }
+    }
+
+    private void computeHorizontalGeometry(int width, int height) {
+        boolean expandLeft = mExpandDirection == EXPAND_LEFT;
+
+        final int adjustShadowOffsetX = (expandLeft) ? -mShadowOffset : mShadowOffset;
+        final int adjustShadowOffsetY = -mShadowOffset;
 
+        int menuButtonX = expandLeft ? width - mMenuButton.getMeasuredWidth() : 0;
+        // Ensure mMenuButton is centered on the line where the buttons should be
+        int buttonsVerticalCenter = height - mMaxButtonHeight / 2;
+        int menuButtonTop = buttonsVerticalCenter - mMenuButton.getMeasuredHeight() / 2;
+        setChildBounds(indexOfChild(mMenuButton),
+                menuButtonX + adjustShadowOffsetX,
+                menuButtonTop + adjustShadowOffsetY,
+                menuButtonX + mMenuButton.getMeasuredWidth() + adjustShadowOffsetX,
+                menuButtonTop + mMenuButton.getMeasuredHeight() + adjustShadowOffsetY);
+
+        int nextX = expandLeft ?
+                menuButtonX - mButtonSpacing :
+                menuButtonX + mMenuButton.getMeasuredWidth() + mButtonSpacing;
+
+        for (int i = getChildCount() - 1; i >= 0; i--) {
+            final View child = getChildAt(i);
+
+            if (child == mMenuButton || child.getVisibility() == GONE) continue;
+
+            int childX = expandLeft ? nextX - child.getMeasuredWidth() : nextX;
+            int childY = buttonsVerticalCenter - child.getMeasuredHeight() / 2;
+            setChildBounds(i,
+                    childX + adjustShadowOffsetX,
+                    childY + adjustShadowOffsetY,
+                    childX + child.getMeasuredWidth() + adjustShadowOffsetX,
+                    childY + child.getMeasuredHeight() + adjustShadowOffsetY);
+            addAnimatedButton(child, menuButtonX - childX, 0f);
+
+            nextX = expandLeft ?
+                    childX - mButtonSpacing :
+                    childX + child.getMeasuredWidth() + mButtonSpacing;
+        }
+    }
+
+    private void computeArcGeometry(int width, int height) {
+        boolean halfArc = mExpandDirection == EXPAND_HALF_ARC;
+
+        int centerX = halfArc ? width / 2 : width - mMaxButtonWidth / 2 - mShadowOffset;
+        int centerY = height - mMaxButtonHeight / 2 - mShadowOffset;
+        int menuButtonLeft = centerX - mMenuButton.getMeasuredWidth() / 2;
+        int menuButtonTop = centerY - mMenuButton.getMeasuredHeight() / 2;
+        setChildBounds(indexOfChild(mMenuButton),
+                menuButtonLeft,
+                menuButtonTop,
+                menuButtonLeft + mMenuButton.getMeasuredWidth(),
+                menuButtonTop + mMenuButton.getMeasuredHeight());
+
+        int buttonCount = 0;
+        for (int i = getChildCount() - 1; i >= 0; i--) {
+            final View child = getChildAt(i);
+            if (child != mMenuButton && child.getVisibility() != GONE) buttonCount++;
+        }
+
+        // Quarter arcs run counterclockwise from the top, half arcs clockwise from the left
+        double span = getArcSpan();
+        double angle = halfArc ? Math.PI : Math.PI / 2;
+        double step = halfArc ? -span : span;
+        if (buttonCount > 1) {
+            step /= buttonCount - 1;
+        } else {
+            angle += step / 2;
+        }
+
+        for (int i = getChildCount() - 1; i >= 0; i--) {
+            final View child = getChildAt(i);
+
+            if (child == mMenuButton || child.getVisibility() == GONE) continue;
+
+            int childCenterX = centerX + (int) Math.round(mArcRadius * Math.cos(angle));
+            int childCenterY = centerY - (int) Math.round(mArcRadius * Math.sin(angle));
+            int childX = childCenterX - child.getMeasuredWidth() / 2;
+            int childY = childCenterY - child.getMeasuredHeight() / 2;
+            setChildBounds(i,
+                    childX,
+                    childY,
+                    childX + child.getMeasuredWidth(),
+                    childY + child.getMeasuredHeight());
+            addAnimatedButton(child, centerX - childCenterX, centerY - childCenterY);
+
+            angle += step;
+        }
+    }
+
+    private void addAnimatedButton(View button, float collapsedTranslationX, float collapsedTranslationY) {
+        mAnimatedButtons[mAnimatedButtonCount] = button;
+        mCollapsedTranslationsX[mAnimatedButtonCount] = collapsedTranslationX;
+        mCollapsedTranslationsY[mAnimatedButtonCount] = collapsedTranslationY;
+        mAnimatedButtonCount++;
+    }
+
+    private void setChildBounds(int index, int left, int top, int right, int bottom) {
+        int offset = index * BOUNDS_STRIDE;
+        mChildBounds[offset] = left;
+        mChildBounds[offset + 1] = top;
+        mChildBounds[offset + 2] = right;
+        mChildBounds[offset + 3] = bottom;
     }
 
     @Override
     protected void onFinishInflate() {
         super.onFinishInflate();
         bringChildToFront(mMenuButton);
-        mButtonsCount = getChildCount();
     }
 
     @Override
@@ -206,6 +566,11 @@ public class FloatingActionsMenu extends ViewGroup {
         if (state instanceof SavedState) {
             SavedState savedState = (SavedState) state;
             mExpanded = savedState.mExpanded;
+            mScrollVisibility.setPinned(mExpanded);
+            mGeometryDirty = true;
+            if (mExpanded) {
+                materializeItems();
+            }
 
             super.onRestoreInstanceState(savedState.getSuperState());
         } else {
@@ -213,24 +578,287 @@ public class FloatingActionsMenu extends ViewGroup {
         }
     }
 
-    @Override
-    protected ViewGroup.LayoutParams generateDefaultLayoutParams() {
-        return new LayoutParams(super.generateDefaultLayoutParams());
+    /**
+     * Adds a button right next to the menu button, the existing buttons move outwards.
+     */
+    public void addButton(@NonNull FloatingActionButton button) {
+        mGeometryDirty = true;
+        addView(button, indexOfChild(mMenuButton));
     }
 
-    @Override
-    public ViewGroup.LayoutParams generateLayoutParams(AttributeSet attrs) {
-        return new LayoutParams(super.generateLayoutParams(attrs));
+    /**
+     * Removes a button added as a child. Buttons of menu items are removed through
+     * {@link #removeItem(int)}.
+     */
+    public void removeButton(@NonNull FloatingActionButton button) {
+        if (!isItemButton(button)) {
+            removeChild(button);
+        }
     }
 
-    @Override
-    protected ViewGroup.LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
-        return new LayoutParams(super.generateLayoutParams(p));
+    private static boolean isItemButton(View child) {
+        return child.getTag(R.id.fab_menu_item) != null;
     }
 
-    @Override
-    protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
-        return super.checkLayoutParams(p);
+    private void removeChild(View child) {
+        if (child == mMenuButton || child.getParent() != this) return;
+        mGeometryDirty = true;
+        removeView(child);
+        // The button may be reused elsewhere, do not leave it collapsed
+        child.setTranslationX(0f);
+        child.setTranslationY(0f);
+        child.setAlpha(1f);
+    }
+
+    /**
+     * Replaces the buttons of the menu, ordered from the menu button outwards. Buttons that are
+     * already part of the menu are kept, so only the difference is added and removed. The
+     * buttons of menu items are not affected and stay outside of these.
+     */
+    public void setButtons(@NonNull List<FloatingActionButton> buttons) {
+        mGeometryDirty = true;
+        int itemButtonCount = 0;
+        for (int i = getChildCount() - 1; i >= 0; i--) {
+            View child = getChildAt(i);
+            if (child == mMenuButton) continue;
+            if (isItemButton(child)) {
+                itemButtonCount++;
+            } else if (!buttons.contains(child)) {
+                removeChild(child);
+            }
+        }
+        // Children are stored outermost first with the menu button last, item buttons occupy
+        // the outermost slots, fill the rest in that order
+        int count = buttons.size();
+        for (int position = 0; position < count; position++) {
+            FloatingActionButton button = buttons.get(count - 1 - position);
+            int index = itemButtonCount + position;
+            if (getChildAt(index) == button) continue;
+            if (button.getParent() == this) {
+                removeViewInLayout(button);
+            }
+            addView(button, index);
+        }
+    }
+
+    /**
+     * Appends an item to the menu. A button is created for each visible item the first time the
+     * menu expands, or earlier when prefetching is enabled. Items added while the menu is
+     * expanded get their button right away.
+     *
+     * @return the new item, to set its icon and title
+     */
+    public Item addItem(int id) {
+        Item item = new Item(this, id);
+        mItems.add(item);
+        onItemShown();
+        return item;
+    }
+
+    /**
+     * @return the first item with this id, or {@code null}
+     */
+    public Item findItem(int id) {
+        for (int i = 0, size = mItems.size(); i < size; i++) {
+            Item item = mItems.get(i);
+            if (item.mId == id) return item;
+        }
+        return null;
+    }
+
+    public Item getItem(int index) {
+        return mItems.get(index);
+    }
+
+    public int getItemCount() {
+        return mItems.size();
+    }
+
+    /**
+     * Removes the first item with this id together with its button.
+     */
+    public void removeItem(int id) {
+        Item item = findItem(id);
+        if (item == null) return;
+        mItems.remove(item);
+        if (item.mButton != null) {
+            removeChild(item.mButton);
+            item.mButton = null;
+        }
+    }
+
+    /**
+     * Appends the items of a menu resource. Reads the {@code android:id}, {@code icon},
+     * {@code title}, {@code enabled} and {@code visible} attributes of the top-level items,
+     * including those within groups, and ignores submenus.
+     */
+    public void inflateMenu(@MenuRes int menuRes) {
+        XmlResourceParser parser = getResources().getLayout(menuRes);
+        try {
+            AttributeSet attrs = Xml.asAttributeSet(parser);
+            int menuDepth = 0;
+            for (int type = parser.getEventType(); type != XmlPullParser.END_DOCUMENT; type = parser.next()) {
+                if (type == XmlPullParser.START_TAG) {
+                    String name = parser.getName();
+                    if ("menu".equals(name)) {
+                        menuDepth++;
+                    } else if ("item".equals(name) && menuDepth == 1) {
+                        inflateItem(attrs);
+                    }
+                } else if (type == XmlPullParser.END_TAG && "menu".equals(parser.getName())) {
+                    menuDepth--;
+                }
+            }
+        } catch (XmlPullParserException e) {
+            throw new InflateException("Error inflating menu XML", e);
+        } catch (IOException e) {
+            throw new InflateException("Error inflating menu XML", e);
+        } finally {
+            parser.close();
+        }
+    }
+
+    private void inflateItem(AttributeSet attrs) {
+        TypedArray attr = getContext().obtainStyledAttributes(attrs, R.styleable.FloatingActionsMenuItem);
+        Item item = new Item(this, attr.getResourceId(R.styleable.FloatingActionsMenuItem_android_id, NO_ID));
+        // The icon is only loaded when the button is created
+        item.mIconRes = attr.getResourceId(R.styleable.FloatingActionsMenuItem_android_icon, 0);
+        item.mTitle = attr.getText(R.styleable.FloatingActionsMenuItem_android_title);
+        item.mEnabled = attr.getBoolean(R.styleable.FloatingActionsMenuItem_android_enabled, true);
+        item.mVisible = attr.getBoolean(R.styleable.FloatingActionsMenuItem_android_visible, true);
+        attr.recycle();
+        mItems.add(item);
+        onItemShown();
+    }
+
+    /**
+     * Receives clicks on the buttons created for menu items. The menu collapses afterwards.
+     */
+    public void setOnItemClickListener(OnItemClickListener listener) {
+        mOnItemClickListener = listener;
+    }
+
+    /**
+     * When enabled, the buttons of the menu items are created once the main thread is idle after
+     * the menu is attached, instead of on the first expand.
+     */
+    public void setItemPrefetchEnabled(boolean prefetch) {
+        mPrefetchItems = prefetch;
+        if (prefetch) {
+            schedulePrefetch();
+        } else {
+            cancelPrefetch();
+        }
+    }
+
+    public boolean isItemPrefetchEnabled() {
+        return mPrefetchItems;
+    }
+
+    private boolean hasPendingItems() {
+        for (int i = 0, size = mItems.size(); i < size; i++) {
+            Item item = mItems.get(i);
+            if (item.mVisible && item.mButton == null) return true;
+        }
+        return false;
+    }
+
+    // An item without a button became visible
+    private void onItemShown() {
+        if (mExpanded) {
+            materializeItems();
+        } else {
+            schedulePrefetch();
+        }
+    }
+
+    private void schedulePrefetch() {
+        if (mPrefetchItems && !mPrefetchScheduled && hasPendingItems() && getWindowToken() != null) {
+            Looper.myQueue().addIdleHandler(mPrefetchHandler);
+            mPrefetchScheduled = true;
+        }
+    }
+
+    private void cancelPrefetch() {
+        if (mPrefetchScheduled) {
+            Looper.myQueue().removeIdleHandler(mPrefetchHandler);
+            mPrefetchScheduled = false;
+        }
+    }
+
+    /**
+     * Creates the buttons of the visible menu items that have none yet. Item buttons are ordered
+     * from the menu button outwards after the buttons added as children, a new button goes right
+     * next to the button of its neighbouring item.
+     *
+     * @return whether any button was added
+     */
+    private boolean materializeItems() {
+        if (!hasPendingItems()) return false;
+        cancelPrefetch();
+        boolean added = false;
+        View previous = null;
+        for (int i = 0, size = mItems.size(); i < size; i++) {
+            Item item = mItems.get(i);
+            if (item.mButton == null && item.mVisible) {
+                int index;
+                if (previous != null) {
+                    // Children are stored outermost first, this puts it just outside the previous one
+                    index = indexOfChild(previous);
+                } else {
+                    View next = findItemButton(i + 1);
+                    index = next != null ? indexOfChild(next) + 1 : 0;
+                }
+                item.mButton = createItemButton(item);
+                mGeometryDirty = true;
+                addView(item.mButton, index);
+                added = true;
+            }
+            if (item.mButton != null) {
+                previous = item.mButton;
+            }
+        }
+        return added;
+    }
+
+    private View findItemButton(int start) {
+        for (int i = start, size = mItems.size(); i < size; i++) {
+            View button = mItems.get(i).mButton;
+            if (button != null) return button;
+        }
+        return null;
+    }
+
+    private FloatingActionButton createItemButton(Item item) {
+        FloatingActionButton button = new FloatingActionButton(getContext());
+        if (item.mId != NO_ID) {
+            button.setId(item.mId);
+        }
+        button.setImageDrawable(item.getIcon());
+        button.setContentDescription(item.mTitle);
+        button.setEnabled(item.mEnabled);
+        button.edit()
+                .setColorNormal(mMenuButtonColorNormal)
+                .setColorPressed(mMenuButtonColorPressed)
+                .setColorRipple(mMenuButtonColorRipple)
+                .setColorDisabled(mMenuButtonColorDisabled)
+                .apply();
+        button.setTag(R.id.fab_menu_item, item);
+        button.setOnClickListener(mItemClickListener);
+        return button;
+    }
+
+    public void setExpandDirection(@EXPAND_DIRECTION int expandDirection) {
+        if (expandDirection != mExpandDirection) {
+            mExpandDirection = expandDirection;
+            mGeometryDirty = true;
+            requestLayout();
+        }
+    }
+
+    @EXPAND_DIRECTION
+    public int getExpandDirection() {
+        return mExpandDirection;
     }
 
     public boolean isExpanded() {
@@ -258,8 +886,11 @@ public class FloatingActionsMenu extends ViewGroup {
     public void collapse() {
         if (mExpanded) {
             mExpanded = false;
-            mCollapseAnimation.start();
+            mScrollVisibility.setPinned(false);
+            mExpandOnLayout = false;
             mExpandAnimation.cancel();
+            mCollapseAnimation.setDuration(getToggleDuration());
+            mCollapseAnimation.start();
             mMenuButton.setImageDrawable(mMenuUnSelectedIcon);
             mMenuButton.setColorNormal(mMenuButtonColorNormal);
 
@@ -272,8 +903,15 @@ public class FloatingActionsMenu extends ViewGroup {
     public void expand() {
         if (!mExpanded) {
             mExpanded = true;
+            mScrollVisibility.setPinned(true);
             mCollapseAnimation.cancel();
-            mExpandAnimation.start();
+            if (materializeItems()) {
+                // The new buttons have no geometry yet, start once they are laid out
+                mExpandOnLayout = true;
+            } else {
+                mExpandAnimation.setDuration(getToggleDuration());
+                mExpandAnimation.start();
+            }
             mMenuButton.setImageDrawable(mMenuSelectedIcon);
             mMenuButton.setColorNormal(mMenuButtonColorSelected);
 
@@ -283,74 +921,96 @@ public class FloatingActionsMenu extends ViewGroup {
         }
     }
 
-    public boolean isVisible() {
-        return mVisible;
+    /**
+     * Delays the animation of each button by this much relative to its neighbour closer to the
+     * menu button, 0 animates all buttons together.
+     */
+    public void setAnimationStagger(int staggerMillis) {
+        mStaggerMillis = Math.max(0, staggerMillis);
     }
 
-    public void show() {
-        show(true);
+    public int getAnimationStagger() {
+        return mStaggerMillis;
     }
 
-    public void hide() {
-        hide(true);
+    private long getToggleDuration() {
+        return ANIMATION_DURATION_TOGGLE + mStaggerMillis * Math.max(0, mAnimatedButtonCount - 1);
     }
 
-    public void show(boolean animate) {
-        bounce(true, animate, false);
+    ValueAnimator getToggleAnimation(boolean expand) {
+        return expand ? mExpandAnimation : mCollapseAnimation;
     }
 
-    public void hide(boolean animate) {
-        if (!mExpanded)
-            bounce(false, animate, false);
+    private void ensureAnimationCapacity(int capacity) {
+        if (mAnimatedButtons.length < capacity) {
+            mAnimatedButtons = new View[capacity];
+            mCollapsedTranslationsX = new float[capacity];
+            mCollapsedTranslationsY = new float[capacity];
+        }
     }
 
-    private void bounce(final boolean visible, final boolean animate, boolean force) {
-        if (mVisible != visible || force) {
-            mVisible = visible;
-            int height = getHeight();
-            if (height == 0 && !force) {
-                ViewTreeObserver vto = getViewTreeObserver();
-                if (vto.isAlive()) {
-                    vto.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
-                        @Override
-                        public boolean onPreDraw() {
-                            ViewTreeObserver currentVto = getViewTreeObserver();
-                            if (currentVto.isAlive()) {
-                                currentVto.removeOnPreDrawListener(this);
-                            }
-                            bounce(visible, animate, true);
-                            return true;
-                        }
-                    });
-                    return;
-                }
-            }
-            int translationY = visible ? 0 : height + getMarginBottom();
-            if (animate) {
-                ViewPropertyAnimator.animate(this).setInterpolator(mInterpolator)
-                        .setDuration(ANIMATION_DURATION_BOUNCE)
-                        .translationY(translationY);
+    /**
+     * Applies one frame of the expand or collapse animation to all buttons. Buttons start one
+     * stagger step after each other, closest to the menu button first when expanding and last
+     * when collapsing.
+     */
+    void applyAnimationFraction(float fraction, boolean expand) {
+        long duration = expand ? mExpandAnimation.getDuration() : mCollapseAnimation.getDuration();
+        float elapsed = fraction * duration;
+        int count = mAnimatedButtonCount;
+        for (int i = 0; i < count; i++) {
+            int step = expand ? i : count - 1 - i;
+            float t = (elapsed - step * mStaggerMillis) / ANIMATION_DURATION_TOGGLE;
+            t = Math.max(0f, Math.min(t, 1f));
+
+            View button = mAnimatedButtons[i];
+            // Removed since the last layout, it may already be reused elsewhere
+            if (button.getParent() != this) continue;
+            float collapsed;
+            if (expand) {
+                collapsed = 1f - sExpandInterpolator.getInterpolation(t);
+                button.setAlpha(sAlphaExpandInterpolator.getInterpolation(t));
             } else {
-                ViewHelper.setTranslationY(this, translationY);
+                collapsed = sCollapseInterpolator.getInterpolation(t);
+                button.setAlpha(1f - collapsed);
             }
+            button.setTranslationX(mCollapsedTranslationsX[i] * collapsed);
+            button.setTranslationY(mCollapsedTranslationsY[i] * collapsed);
         }
     }
 
-    private int getMarginBottom() {
-        int marginBottom = 0;
-        final ViewGroup.LayoutParams layoutParams = getLayoutParams();
-        if (layoutParams instanceof ViewGroup.MarginLayoutParams) {
-            marginBottom = ((ViewGroup.MarginLayoutParams) layoutParams).bottomMargin;
-        }
-        return marginBottom;
+    public boolean isVisible() {
+        return mScrollVisibility.isVisible();
+    }
+
+    public void show() {
+        show(true);
+    }
+
+    public void hide() {
+        hide(true);
+    }
+
+    public void show(boolean animate) {
+        mScrollVisibility.show(animate);
+    }
+
+    /**
+     * Hides the menu unless it is expanded.
+     */
+    public void hide(boolean animate) {
+        mScrollVisibility.hide(animate);
     }
 
     private void createMenuButton(Context context) {
         mMenuButton = new FloatingActionButton(context);
         mMenuButton.setImageDrawable(mExpanded ? mMenuSelectedIcon : mMenuUnSelectedIcon);
-        mMenuButton.setColorNormal(mMenuButtonColorNormal);
-        mMenuButton.setColorPressed(mMenuButtonColorPressed);
-        mMenuButton.setColorRipple(mMenuButtonColorRipple);
+        mMenuButton.edit()
+                .setColorNormal(mMenuButtonColorNormal)
+                .setColorPressed(mMenuButtonColorPressed)
+                .setColorRipple(mMenuButtonColorRipple)
+                .setColorDisabled(mMenuButtonColorDisabled)
+                .apply();
 
         mMenuButton.setOnClickListener(new OnClickListener() {
             @Override
@@ -362,54 +1022,109 @@ public class FloatingActionsMenu extends ViewGroup {
         addView(mMenuButton, super.generateDefaultLayoutParams());
     }
 
-    private int getColor(@ColorRes int id) {
-        return getResources().getColor(id);
-    }
-
     private static Interpolator sExpandInterpolator = new OvershootInterpolator();
     private static Interpolator sCollapseInterpolator = new DecelerateInterpolator(3f);
     private static Interpolator sAlphaExpandInterpolator = new DecelerateInterpolator();
 
-    private class LayoutParams extends ViewGroup.LayoutParams {
+    /**
+     * An action of the menu, shown as a button once the menu needs it. Changes to an item that
+     * already has a button are applied to the button.
+     */
+    public static final class Item {
+        private final FloatingActionsMenu mMenu;
+        private final int mId;
+        private int mIconRes;
+        private Drawable mIcon;
+        private CharSequence mTitle;
+        private boolean mEnabled = true;
+        private boolean mVisible = true;
+        private FloatingActionButton mButton;
+
+        private Item(FloatingActionsMenu menu, int id) {
+            mMenu = menu;
+            mId = id;
+        }
 
-        private ObjectAnimator mExpandDir = new ObjectAnimator();
-        private ObjectAnimator mExpandAlpha = new ObjectAnimator();
-        private ObjectAnimator mCollapseDir = new ObjectAnimator();
-        private ObjectAnimator mCollapseAlpha = new ObjectAnimator();
-        private boolean animationsSetToPlay;
+        public int getId() {
+            return mId;
+        }
 
-        public LayoutParams(ViewGroup.LayoutParams source) {
-            super(source);
+        public Item setIcon(@DrawableRes int iconRes) {
+            mIconRes = iconRes;
+            mIcon = null;
+            if (mButton != null) {
+                mButton.setImageDrawable(getIcon());
+            }
+            return this;
+        }
 
-            mExpandDir.setInterpolator(sExpandInterpolator);
-            mExpandAlpha.setInterpolator(sAlphaExpandInterpolator);
-            mCollapseDir.setInterpolator(sCollapseInterpolator);
-            mCollapseAlpha.setInterpolator(sCollapseInterpolator);
+        public Item setIcon(Drawable icon) {
+            mIconRes = 0;
+            mIcon = icon;
+            if (mButton != null) {
+                mButton.setImageDrawable(icon);
+            }
+            return this;
+        }
 
-            mCollapseAlpha.setProperty(View.ALPHA);
-            mCollapseAlpha.setFloatValues(1f, 0f);
+        public Drawable getIcon() {
+            if (mIcon == null && mIconRes != 0) {
+                mIcon = mMenu.getResources().getDrawable(mIconRes);
+            }
+            return mIcon;
+        }
 
-            mExpandAlpha.setProperty(View.ALPHA);
-            mExpandAlpha.setFloatValues(0f, 1f);
+        public Item setTitle(@StringRes int titleRes) {
+            return setTitle(mMenu.getContext().getText(titleRes));
+        }
 
-            mCollapseDir.setProperty(View.TRANSLATION_Y);
-            mExpandDir.setProperty(View.TRANSLATION_Y);
+        /**
+         * The title is used as the content description of the button.
+         */
+        public Item setTitle(CharSequence title) {
+            mTitle = title;
+            if (mButton != null) {
+                mButton.setContentDescription(title);
+            }
+            return this;
         }
 
-        public void setAnimationsTarget(View view) {
-            mCollapseAlpha.setTarget(view);
-            mCollapseDir.setTarget(view);
-            mExpandAlpha.setTarget(view);
-            mExpandDir.setTarget(view);
+        public CharSequence getTitle() {
+            return mTitle;
+        }
 
-            // Now that the animations have targets, set them to be played
-            if (!animationsSetToPlay) {
-                mCollapseAnimation.play(mCollapseAlpha);
-                mCollapseAnimation.play(mCollapseDir);
-                mExpandAnimation.play(mExpandAlpha);
-                mExpandAnimation.play(mExpandDir);
-                animationsSetToPlay = true;
+        public Item setEnabled(boolean enabled) {
+            mEnabled = enabled;
+            if (mButton != null) {
+                mButton.setEnabled(enabled);
             }
+            return this;
+        }
+
+        public boolean isEnabled() {
+            return mEnabled;
+        }
+
+        public Item setVisible(boolean visible) {
+            if (visible == mVisible) return this;
+            mVisible = visible;
+            if (mButton != null) {
+                mButton.setVisibility(visible ? VISIBLE : GONE);
+            } else if (visible) {
+                mMenu.onItemShown();
+            }
+            return this;
+        }
+
+        public boolean isVisible() {
+            return mVisible;
+        }
+
+        /**
+         * @return the button of the item, or {@code null} while it has not been created
+         */
+        public FloatingActionButton getButton() {
+            return mButton;
         }
     }
 
@@ -445,196 +1160,161 @@ public class FloatingActionsMenu extends ViewGroup {
         };
     }
 
-    public void attachToListView(@NonNull AbsListView listView) {
-        attachToListView(listView, null);
+    /**
+     * An expanded menu stays in place.
+     *
+     * @see FloatingActionButton#setQuickReturnEnabled(boolean)
+     */
+    public void setQuickReturnEnabled(boolean quickReturn) {
+        mScrollVisibility.setQuickReturnEnabled(quickReturn);
     }
 
-    public void attachToListView(@NonNull AbsListView listView,
-                                 ScrollDirectionListener listener) {
-        attachToListView(listView, listener, null);
+    public boolean isQuickReturnEnabled() {
+        return mScrollVisibility.isQuickReturnEnabled();
     }
 
-    public void attachToListView(@NonNull AbsListView listView,
-                                 ScrollDirectionListener scrollDirectionListener,
-                                 AbsListView.OnScrollListener onScrollListener) {
-        AbsListViewScrollDetectorImpl scrollDetector = new AbsListViewScrollDetectorImpl();
-        scrollDetector.setScrollDirectionListener(scrollDirectionListener);
-        scrollDetector.setOnScrollListener(onScrollListener);
-        scrollDetector.setListView(listView);
-        scrollDetector.setScrollThreshold(mScrollThreshold);
-        listView.setOnScrollListener(scrollDetector);
+    /**
+     * @see FloatingActionButton#setScrollThreshold(int)
+     */
+    public void setScrollThreshold(int scrollThreshold) {
+        mScrollVisibility.setScrollThreshold(scrollThreshold);
     }
 
-    public void attachToRecyclerView(@NonNull RecyclerView recyclerView) {
-        attachToRecyclerView(recyclerView, null);
+    /**
+     * @see FloatingActionButton#setMinScrollVelocity(float)
+     */
+    public void setMinScrollVelocity(float pixelsPerSecond) {
+        mScrollVisibility.setMinScrollVelocity(pixelsPerSecond);
     }
 
-    public void attachToRecyclerView(@NonNull RecyclerView recyclerView,
-                                     ScrollDirectionListener listener) {
-        attachToRecyclerView(recyclerView, listener, null);
+    /**
+     * @see FloatingActionButton#setScrollHysteresis(int, long)
+     */
+    public void setScrollHysteresis(int minReverseDistance, long minDwellMillis) {
+        mScrollVisibility.setScrollHysteresis(minReverseDistance, minDwellMillis);
     }
 
-    public void attachToRecyclerView(@NonNull RecyclerView recyclerView,
-                                     ScrollDirectionListener scrollDirectionlistener,
-                                     RecyclerView.OnScrollListener onScrollListener) {
-        RecyclerViewScrollDetectorImpl scrollDetector = new RecyclerViewScrollDetectorImpl();
-        scrollDetector.setScrollDirectionListener(scrollDirectionlistener);
-        scrollDetector.setOnScrollListener(onScrollListener);
-        scrollDetector.setScrollThreshold(mScrollThreshold);
-        recyclerView.setOnScrollListener(scrollDetector);
+    /**
+     * @see FloatingActionButton#setFrameAlignedScrollDispatch(boolean)
+     */
+    public void setFrameAlignedScrollDispatch(boolean frameAligned) {
+        mScrollVisibility.setFrameAlignedScrollDispatch(frameAligned);
     }
 
-    public void attachToScrollView(@NonNull ObservableScrollView scrollView) {
-        attachToScrollView(scrollView, null);
+    public boolean isFrameAlignedScrollDispatch() {
+        return mScrollVisibility.isFrameAlignedScrollDispatch();
     }
 
-    public void attachToScrollView(@NonNull ObservableScrollView scrollView,
-                                   ScrollDirectionListener listener) {
-        attachToScrollView(scrollView, listener, null);
+    /**
+     * @see FloatingActionButton#setScrollAxis(int)
+     */
+    public void setScrollAxis(@FloatingActionButton.SCROLL_AXIS int axis) {
+        mScrollVisibility.setScrollAxis(axis);
     }
 
-    public void attachToScrollView(@NonNull ObservableScrollView scrollView,
-                                   ScrollDirectionListener scrollDirectionListener,
-                                   ObservableScrollView.OnScrollChangedListener onScrollChangedListener) {
-        ScrollViewScrollDetectorImpl scrollDetector = new ScrollViewScrollDetectorImpl();
-        scrollDetector.setScrollDirectionListener(scrollDirectionListener);
-        scrollDetector.setOnScrollChangedListener(onScrollChangedListener);
-        scrollDetector.setScrollThreshold(mScrollThreshold);
-        scrollView.setOnScrollChangedListener(scrollDetector);
+    @FloatingActionButton.SCROLL_AXIS
+    public int getScrollAxis() {
+        return mScrollVisibility.getScrollAxis();
     }
 
-    private class AbsListViewScrollDetectorImpl extends AbsListViewScrollDetector {
-        private ScrollDirectionListener mScrollDirectionListener;
-        private AbsListView.OnScrollListener mOnScrollListener;
-
-        private void setScrollDirectionListener(ScrollDirectionListener scrollDirectionListener) {
-            mScrollDirectionListener = scrollDirectionListener;
-        }
-
-        public void setOnScrollListener(AbsListView.OnScrollListener onScrollListener) {
-            mOnScrollListener = onScrollListener;
-        }
-
-        @Override
-        public void onScrollDown() {
-            show();
-            if (mScrollDirectionListener != null) {
-                mScrollDirectionListener.onScrollDown();
-            }
-        }
-
-        @Override
-        public void onScrollUp() {
-            hide();
-            if (mScrollDirectionListener != null) {
-                mScrollDirectionListener.onScrollUp();
-            }
-        }
-
-        @Override
-        public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount,
-                             int totalItemCount) {
-            if (mOnScrollListener != null) {
-                mOnScrollListener.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
-            }
-
-            super.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
-        }
-
-        @Override
-        public void onScrollStateChanged(AbsListView view, int scrollState) {
-            if (mOnScrollListener != null) {
-                mOnScrollListener.onScrollStateChanged(view, scrollState);
-            }
-
-            super.onScrollStateChanged(view, scrollState);
-        }
+    /**
+     * @see FloatingActionButton#setEdgePolicy(int)
+     */
+    public void setEdgePolicy(@FloatingActionButton.EDGE_POLICY int policy) {
+        mScrollVisibility.setEdgePolicy(policy);
     }
 
-    private class RecyclerViewScrollDetectorImpl extends RecyclerViewScrollDetector {
-        private ScrollDirectionListener mScrollDirectionListener;
-        private RecyclerView.OnScrollListener mOnScrollListener;
+    @FloatingActionButton.EDGE_POLICY
+    public int getEdgePolicy() {
+        return mScrollVisibility.getEdgePolicy();
+    }
 
-        private void setScrollDirectionListener(ScrollDirectionListener scrollDirectionListener) {
-            mScrollDirectionListener = scrollDirectionListener;
-        }
+    public int getSuppressedToggleCount() {
+        return mScrollVisibility.getSuppressedToggleCount();
+    }
 
-        public void setOnScrollListener(RecyclerView.OnScrollListener onScrollListener) {
-            mOnScrollListener = onScrollListener;
-        }
+    public int getDirectionChangeCount() {
+        return mScrollVisibility.getDirectionChangeCount();
+    }
 
-        @Override
-        public void onScrollDown() {
-            show();
-            if (mScrollDirectionListener != null) {
-                mScrollDirectionListener.onScrollDown();
-            }
-        }
+    public ScrollCoordinator.Binding attachToListView(@NonNull AbsListView listView) {
+        return attachToListView(listView, null);
+    }
 
-        @Override
-        public void onScrollUp() {
-            hide();
-            if (mScrollDirectionListener != null) {
-                mScrollDirectionListener.onScrollUp();
-            }
-        }
+    public ScrollCoordinator.Binding attachToListView(@NonNull AbsListView listView,
+                                                      ScrollDirectionListener listener) {
+        return attachToListView(listView, listener, null);
+    }
 
-        @Override
-        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
-            if (mOnScrollListener != null) {
-                mOnScrollListener.onScrolled(recyclerView, dx, dy);
-            }
+    public ScrollCoordinator.Binding attachToListView(@NonNull AbsListView listView,
+                                                      ScrollDirectionListener scrollDirectionListener,
+                                                      AbsListView.OnScrollListener onScrollListener) {
+        return mScrollVisibility.attachToListView(listView, scrollDirectionListener, onScrollListener);
+    }
 
-            super.onScrolled(recyclerView, dx, dy);
-        }
+    public ScrollCoordinator.Binding attachToRecyclerView(@NonNull RecyclerView recyclerView) {
+        return attachToRecyclerView(recyclerView, null);
+    }
 
-        @Override
-        public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
-            if (mOnScrollListener != null) {
-                mOnScrollListener.onScrollStateChanged(recyclerView, newState);
-            }
+    public ScrollCoordinator.Binding attachToRecyclerView(@NonNull RecyclerView recyclerView,
+                                                          ScrollDirectionListener listener) {
+        return attachToRecyclerView(recyclerView, listener, null);
+    }
 
-            super.onScrollStateChanged(recyclerView, newState);
-        }
+    public ScrollCoordinator.Binding attachToRecyclerView(@NonNull RecyclerView recyclerView,
+                                                          ScrollDirectionListener scrollDirectionlistener,
+                                                          RecyclerView.OnScrollListener onScrollListener) {
+        return mScrollVisibility.attachToRecyclerView(recyclerView, scrollDirectionlistener,
+                onScrollListener);
     }
 
-    private class ScrollViewScrollDetectorImpl extends ScrollViewScrollDetector {
-        private ScrollDirectionListener mScrollDirectionListener;
+    public ScrollCoordinator.Binding attachToScrollView(@NonNull ObservableScrollView scrollView) {
+        return attachToScrollView(scrollView, null);
+    }
 
-        private ObservableScrollView.OnScrollChangedListener mOnScrollChangedListener;
+    public ScrollCoordinator.Binding attachToScrollView(@NonNull ObservableScrollView scrollView,
+                                                        ScrollDirectionListener listener) {
+        return attachToScrollView(scrollView, listener, null);
+    }
 
-        private void setScrollDirectionListener(ScrollDirectionListener scrollDirectionListener) {
-            mScrollDirectionListener = scrollDirectionListener;
-        }
+    public ScrollCoordinator.Binding attachToScrollView(@NonNull ObservableScrollView scrollView,
+                                                        ScrollDirectionListener scrollDirectionListener,
+                                                        ObservableScrollView.OnScrollChangedListener onScrollChangedListener) {
+        return mScrollVisibility.attachToScrollView(scrollView, scrollDirectionListener,
+                onScrollChangedListener);
+    }
 
-        public void setOnScrollChangedListener(ObservableScrollView.OnScrollChangedListener onScrollChangedListener) {
-            mOnScrollChangedListener = onScrollChangedListener;
-        }
+    /**
+     * @see FloatingActionButton#attachToView(View)
+     */
+    public ScrollCoordinator.Binding attachToView(@NonNull View view) {
+        return attachToView(view, null);
+    }
 
-        @Override
-        public void onScrollDown() {
-            show();
-            if (mScrollDirectionListener != null) {
-                mScrollDirectionListener.onScrollDown();
-            }
-        }
+    public ScrollCoordinator.Binding attachToView(@NonNull View view,
+                                                  ScrollDirectionListener scrollDirectionListener) {
+        return mScrollVisibility.attachToView(view, scrollDirectionListener);
+    }
 
-        @Override
-        public void onScrollUp() {
-            hide();
-            if (mScrollDirectionListener != null) {
-                mScrollDirectionListener.onScrollUp();
-            }
-        }
+    /**
+     * @see FloatingActionButton#detachFromScrollContainer()
+     */
+    public void detachFromScrollContainer() {
+        mScrollVisibility.detach();
+    }
 
-        @Override
-        public void onScrollChanged(ScrollView who, int l, int t, int oldl, int oldt) {
-            if (mOnScrollChangedListener != null) {
-                mOnScrollChangedListener.onScrollChanged(who, l, t, oldl, oldt);
-            }
+    /**
+     * @see FloatingActionButton#setWeakScrollBinding(boolean)
+     */
+    public void setWeakScrollBinding(boolean weak) {
+        mScrollVisibility.setWeakScrollBinding(weak);
+    }
 
-            super.onScrollChanged(who, l, t, oldl, oldt);
-        }
+    public boolean isWeakScrollBinding() {
+        return mScrollVisibility.isWeakScrollBinding();
     }
 
+    ScrollTarget getScrollTarget() {
+        return mScrollVisibility.getScrollTarget();
+    }
 }
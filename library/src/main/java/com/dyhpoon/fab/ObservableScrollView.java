@@ -11,7 +11,10 @@ public class ObservableScrollView extends ScrollView {
         void onScrollChanged(ScrollView who, int l, int t, int oldl, int oldt);
     }
 
+    private static final OnScrollChangedListener[] NO_LISTENERS = new OnScrollChangedListener[0];
+
     private OnScrollChangedListener mOnScrollChangedListener;
+    private OnScrollChangedListener[] mOnScrollChangedListeners = NO_LISTENERS;
 
     public ObservableScrollView(Context context) {
         super(context);
@@ -31,9 +34,26 @@ public class ObservableScrollView extends ScrollView {
         if (mOnScrollChangedListener != null) {
             mOnScrollChangedListener.onScrollChanged(this, l, t, oldl, oldt);
         }
+        OnScrollChangedListener[] listeners = mOnScrollChangedListeners;
+        for (OnScrollChangedListener listener : listeners) {
+            listener.onScrollChanged(this, l, t, oldl, oldt);
+        }
     }
 
+    /**
+     * @deprecated Replaces the previously set listener. Use
+     * {@link #addOnScrollChangedListener(OnScrollChangedListener)} instead.
+     */
+    @Deprecated
     public void setOnScrollChangedListener(OnScrollChangedListener listener) {
         mOnScrollChangedListener = listener;
     }
-}
\ No newline at end of file
+
+    public void addOnScrollChangedListener(OnScrollChangedListener listener) {
+        mOnScrollChangedListeners = ArrayUtils.append(mOnScrollChangedListeners, listener);
+    }
+
+    public void removeOnScrollChangedListener(OnScrollChangedListener listener) {
+        mOnScrollChangedListeners = ArrayUtils.remove(mOnScrollChangedListeners, listener);
+    }
+}
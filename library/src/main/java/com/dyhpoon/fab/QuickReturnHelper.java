@@ -0,0 +1,75 @@
+package com.dyhpoon.fab;
+
+import android.view.View;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+import com.nineoldandroids.view.ViewHelper;
+import com.nineoldandroids.view.ViewPropertyAnimator;
+
+/**
+ * Moves a view along with the scroll position: every scroll delta is applied to its translation
+ * directly, clamped between fully shown and fully hidden, and an animation only runs to snap the
+ * view into one of those two positions once scrolling stops.
+ */
+final class QuickReturnHelper {
+    private static final int SNAP_DURATION_MILLIS = 200;
+
+    private final View mView;
+    private final Interpolator mInterpolator = new AccelerateDecelerateInterpolator();
+    private boolean mHorizontal;
+
+    QuickReturnHelper(View view) {
+        mView = view;
+    }
+
+    /**
+     * @param horizontal whether the view is hidden along the x axis instead of the y axis
+     */
+    void setHorizontal(boolean horizontal) {
+        mHorizontal = horizontal;
+    }
+
+    /**
+     * @param delta             scroll distance since the last event, positive when the content
+     *                          moves towards its end
+     * @param hiddenTranslation translation at which the view is completely hidden
+     */
+    void onScrollDelta(int delta, int hiddenTranslation) {
+        if (delta == 0 || hiddenTranslation <= 0) return;
+        ViewPropertyAnimator.animate(mView).cancel();
+        float translation = getTranslation() + delta;
+        translation = Math.max(0, Math.min(translation, hiddenTranslation));
+        if (mHorizontal) {
+            ViewHelper.setTranslationX(mView, translation);
+        } else {
+            ViewHelper.setTranslationY(mView, translation);
+        }
+    }
+
+    /**
+     * Snaps the view to whichever end it is closer to.
+     *
+     * @return whether the view ends up visible
+     */
+    boolean snap(int hiddenTranslation) {
+        float translation = getTranslation();
+        boolean visible = translation < hiddenTranslation / 2f;
+        float target = visible ? 0 : hiddenTranslation;
+        if (translation != target) {
+            ViewPropertyAnimator animator = ViewPropertyAnimator.animate(mView)
+                    .setInterpolator(mInterpolator)
+                    .setDuration(SNAP_DURATION_MILLIS);
+            if (mHorizontal) {
+                animator.translationX(target);
+            } else {
+                animator.translationY(target);
+            }
+        }
+        return visible;
+    }
+
+    private float getTranslation() {
+        return mHorizontal ? ViewHelper.getTranslationX(mView) : ViewHelper.getTranslationY(mView);
+    }
+}
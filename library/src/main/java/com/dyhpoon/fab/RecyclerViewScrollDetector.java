@@ -2,29 +2,75 @@ package com.dyhpoon.fab;
 
 import android.support.v7.widget.RecyclerView;
 
-abstract class RecyclerViewScrollDetector extends RecyclerView.OnScrollListener {
-    private int mScrollThreshold;
-    private RecyclerView.OnScrollListener mRecycleViewScrollListener;
+class RecyclerViewScrollDetector extends RecyclerView.OnScrollListener {
+    private static final RecyclerView.OnScrollListener[] NO_LISTENERS =
+            new RecyclerView.OnScrollListener[0];
 
-    abstract void onScrollUp();
+    private final ScrollTarget mTarget;
+    private boolean mHorizontal;
+    private RecyclerView.OnScrollListener[] mRecycleViewScrollListeners = NO_LISTENERS;
 
-    abstract void onScrollDown();
+    RecyclerViewScrollDetector(ScrollTarget target) {
+        mTarget = target;
+    }
+
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        RecyclerView.OnScrollListener[] listeners = mRecycleViewScrollListeners;
+        for (RecyclerView.OnScrollListener listener : listeners) {
+            listener.onScrollStateChanged(recyclerView, newState);
+        }
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            mTarget.onScrollIdle();
+        }
+    }
 
     @Override
     public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
-        boolean isSignificantDelta = Math.abs(dy) > mScrollThreshold;
-        if (isSignificantDelta) {
-            if (dy > 0) {
-                onScrollUp();
-            } else {
-                onScrollDown();
-            }
+        RecyclerView.OnScrollListener[] listeners = mRecycleViewScrollListeners;
+        for (RecyclerView.OnScrollListener listener : listeners) {
+            listener.onScrolled(recyclerView, dx, dy);
+        }
+        mTarget.onScrollEdges(getEdges(recyclerView));
+        mTarget.onScrollDelta(mHorizontal ? dx : dy);
+    }
+
+    private int getEdges(RecyclerView recyclerView) {
+        int offset;
+        int extent;
+        int range;
+        if (mHorizontal) {
+            offset = recyclerView.computeHorizontalScrollOffset();
+            extent = recyclerView.computeHorizontalScrollExtent();
+            range = recyclerView.computeHorizontalScrollRange();
+        } else {
+            offset = recyclerView.computeVerticalScrollOffset();
+            extent = recyclerView.computeVerticalScrollExtent();
+            range = recyclerView.computeVerticalScrollRange();
         }
-        if (mRecycleViewScrollListener != null)
-            mRecycleViewScrollListener.onScrolled(recyclerView, dx, dy);
+        int edges = 0;
+        if (offset <= 0) {
+            edges |= ScrollTarget.EDGE_START;
+        }
+        if (offset + extent >= range) {
+            edges |= ScrollTarget.EDGE_END;
+        }
+        return edges;
+    }
+
+    void setHorizontal(boolean horizontal) {
+        mHorizontal = horizontal;
+    }
+
+    void addOnScrollListener(RecyclerView.OnScrollListener listener) {
+        mRecycleViewScrollListeners = ArrayUtils.append(mRecycleViewScrollListeners, listener);
+    }
+
+    void removeOnScrollListener(RecyclerView.OnScrollListener listener) {
+        mRecycleViewScrollListeners = ArrayUtils.remove(mRecycleViewScrollListeners, listener);
     }
 
-    public void setScrollThreshold(int scrollThreshold) {
-        mScrollThreshold = scrollThreshold;
+    boolean hasListeners() {
+        return mRecycleViewScrollListeners.length > 0;
     }
-}
\ No newline at end of file
+}
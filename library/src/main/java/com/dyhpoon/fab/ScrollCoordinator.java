@@ -0,0 +1,630 @@
+package com.dyhpoon.fab;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.animation.AnimationUtils;
+import android.widget.AbsListView;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Listens to one scroll container, detects the scroll direction once and fans the result out
+ * to any number of {@link FloatingActionButton}s, {@link FloatingActionsMenu}s and
+ * {@link ScrollDirectionListener}s. There is at most one coordinator per container, so
+ * attaching several buttons to the same list no longer replaces each other's listener.
+ * <p>
+ * Registrations copy the target arrays, dispatching a scroll event does not allocate. Once
+ * nothing is registered anymore the coordinator removes itself from the container.
+ * <p>
+ * The scroll settings (axis, threshold, minimum velocity, hysteresis and frame-aligned dispatch)
+ * belong to the coordinator and are shared by everything bound to it. Values set through the
+ * setters of the coordinator apply to all of them and take precedence. Otherwise a button or
+ * menu brings in the settings it set explicitly, through a setter or an XML attribute, when it is
+ * attached; attaching one that explicitly sets a different value than another bound one throws an
+ * {@link IllegalStateException}. Settings left at their defaults never conflict, the button
+ * simply uses the current settings of the coordinator.
+ */
+public final class ScrollCoordinator {
+    static final int SETTING_AXIS = 1;
+    static final int SETTING_THRESHOLD = 1 << 1;
+    static final int SETTING_MIN_VELOCITY = 1 << 2;
+    static final int SETTING_HYSTERESIS = 1 << 3;
+    static final int SETTING_FRAME_ALIGNED = 1 << 4;
+    private static final int SETTING_COUNT = 5;
+
+    private static final ScrollTarget[] NO_TARGETS = new ScrollTarget[0];
+    private static final ScrollDirectionListener[] NO_LISTENERS = new ScrollDirectionListener[0];
+
+    private ScrollTarget[] mTargets = NO_TARGETS;
+    private ScrollDirectionListener[] mListeners = NO_LISTENERS;
+
+    private View mContainer;
+    private AbsListViewScrollDetector mListViewDetector;
+    private RecyclerViewScrollDetector mRecyclerViewDetector;
+    private ScrollViewScrollDetector mScrollViewDetector;
+    private ViewScrollDetector mViewDetector;
+    private int mEdges = -1;
+
+    private int mScrollAxis = FloatingActionButton.SCROLL_AXIS_VERTICAL;
+    private int mScrollThreshold;
+    private float mMinScrollVelocity;
+    private int mScrollHysteresis;
+    private long mScrollDwellMillis;
+    private boolean mFrameAligned;
+    // Settings set through the setters of the coordinator, and per setting the number of
+    // bindings that brought it in explicitly
+    private int mOwnedSettings;
+    private final int[] mSettingUsers = new int[SETTING_COUNT];
+
+    private final ScrollTarget mDispatcher = new ScrollTarget() {
+        @Override
+        public void onScrollDelta(int delta) {
+            ScrollTarget[] targets = mTargets;
+            for (ScrollTarget target : targets) {
+                target.onScrollDelta(delta);
+            }
+            if (mContainer == null) return;
+            mDirectionResolver.onScroll(delta, AnimationUtils.currentAnimationTimeMillis());
+        }
+
+        @Override
+        public void onScrollIdle() {
+            mDirectionResolver.reset();
+            ScrollTarget[] targets = mTargets;
+            for (ScrollTarget target : targets) {
+                target.onScrollIdle();
+            }
+        }
+
+        @Override
+        public void onScrollEdges(int edges) {
+            if (edges == mEdges) return;
+            mEdges = edges;
+            ScrollTarget[] targets = mTargets;
+            for (ScrollTarget target : targets) {
+                target.onScrollEdges(edges);
+            }
+        }
+
+        @Override
+        public void onScrollUp() {
+            ScrollTarget[] targets = mTargets;
+            for (ScrollTarget target : targets) {
+                target.onScrollUp();
+            }
+            ScrollDirectionListener[] listeners = mListeners;
+            for (ScrollDirectionListener listener : listeners) {
+                listener.onScrollUp();
+            }
+        }
+
+        @Override
+        public void onScrollDown() {
+            ScrollTarget[] targets = mTargets;
+            for (ScrollTarget target : targets) {
+                target.onScrollDown();
+            }
+            ScrollDirectionListener[] listeners = mListeners;
+            for (ScrollDirectionListener listener : listeners) {
+                listener.onScrollDown();
+            }
+        }
+    };
+
+    private final ScrollDirectionResolver mDirectionResolver = new ScrollDirectionResolver(mDispatcher);
+
+    private ScrollCoordinator(FabMetrics metrics) {
+        mDirectionResolver.setVelocityThresholds(0f, metrics.scrollDeceleration);
+        applyScrollThreshold(metrics.scrollThreshold);
+        applyMinScrollVelocity(metrics.minScrollVelocity);
+        applyScrollHysteresis(metrics.scrollHysteresis, metrics.scrollDwellMillis);
+    }
+
+    /**
+     * Returns the coordinator of the list view, attaching a new one on first use. The
+     * coordinator takes over the list's {@link AbsListView.OnScrollListener}; register
+     * further scroll listeners through {@link #addOnScrollListener(AbsListView.OnScrollListener)}.
+     */
+    public static ScrollCoordinator of(@NonNull AbsListView listView) {
+        ScrollCoordinator coordinator = get(listView);
+        if (coordinator == null) {
+            coordinator = create(listView);
+            coordinator.mListViewDetector = new AbsListViewScrollDetector(coordinator.mDispatcher);
+            listView.setOnScrollListener(coordinator.mListViewDetector);
+        }
+        return coordinator;
+    }
+
+    public static ScrollCoordinator of(@NonNull RecyclerView recyclerView) {
+        ScrollCoordinator coordinator = get(recyclerView);
+        if (coordinator == null) {
+            coordinator = create(recyclerView);
+            coordinator.mRecyclerViewDetector = new RecyclerViewScrollDetector(coordinator.mDispatcher);
+            recyclerView.addOnScrollListener(coordinator.mRecyclerViewDetector);
+        }
+        return coordinator;
+    }
+
+    public static ScrollCoordinator of(@NonNull ObservableScrollView scrollView) {
+        ScrollCoordinator coordinator = get(scrollView);
+        if (coordinator == null) {
+            coordinator = create(scrollView);
+            coordinator.mScrollViewDetector = new ScrollViewScrollDetector(coordinator.mDispatcher);
+            scrollView.addOnScrollChangedListener(coordinator.mScrollViewDetector);
+        }
+        return coordinator;
+    }
+
+    /**
+     * Returns the coordinator of any scrolling view, attaching a new one on first use. Views
+     * without a dedicated detector are observed through the window's
+     * {@link android.view.ViewTreeObserver.OnScrollChangedListener}, which is shared by all
+     * coordinators of the window.
+     */
+    public static ScrollCoordinator of(@NonNull View view) {
+        if (view instanceof AbsListView) {
+            return of((AbsListView) view);
+        }
+        if (view instanceof RecyclerView) {
+            return of((RecyclerView) view);
+        }
+        if (view instanceof ObservableScrollView) {
+            return of((ObservableScrollView) view);
+        }
+        ScrollCoordinator coordinator = get(view);
+        if (coordinator == null) {
+            coordinator = create(view);
+            coordinator.mViewDetector = new ViewScrollDetector(coordinator.mDispatcher, view);
+        }
+        return coordinator;
+    }
+
+    private static ScrollCoordinator get(View container) {
+        return (ScrollCoordinator) container.getTag(R.id.fab_scroll_coordinator);
+    }
+
+    private static ScrollCoordinator create(View container) {
+        ScrollCoordinator coordinator = new ScrollCoordinator(FabMetrics.get(container.getResources()));
+        coordinator.mContainer = container;
+        container.setTag(R.id.fab_scroll_coordinator, coordinator);
+        return coordinator;
+    }
+
+    /**
+     * Registers a target together with the direction listener and the raw scroll listener that
+     * were passed to the same attach call, so that {@link Binding#detach()} can remove all of
+     * them again.
+     *
+     * @param weak whether the coordinator should only hold a weak reference to the target
+     * @param settings the settings returned by {@link #configure}, released again on detach
+     */
+    Binding bind(ScrollTarget target, boolean weak, ScrollDirectionListener listener,
+                 Object scrollListener, int settings) {
+        addTarget(weak ? new WeakScrollTarget(target, settings) : target);
+        mListeners = ArrayUtils.append(mListeners, listener);
+        if (mEdges >= 0) {
+            target.onScrollEdges(mEdges);
+        }
+        return new Binding(this, target, listener, scrollListener, settings);
+    }
+
+    /**
+     * Brings in the settings a button or menu that is about to be bound set explicitly. Settings
+     * owned by the coordinator are skipped, the others have to match the value brought in by any
+     * other bound button or menu.
+     *
+     * @param settings the {@code SETTING_*} flags of the values that were set explicitly
+     * @return the settings that were brought in, to be passed to {@link #bind}
+     */
+    int configure(int settings, int axis, int scrollThreshold, float minScrollVelocity,
+                  int minReverseDistance, long minDwellMillis, boolean frameAligned) {
+        settings &= ~mOwnedSettings;
+        // Everything is checked first, so that a conflict leaves the coordinator untouched
+        if (conflicts(settings, SETTING_AXIS, axis != mScrollAxis)
+                || conflicts(settings, SETTING_THRESHOLD, scrollThreshold != mScrollThreshold)
+                || conflicts(settings, SETTING_MIN_VELOCITY, minScrollVelocity != mMinScrollVelocity)
+                || conflicts(settings, SETTING_HYSTERESIS, minReverseDistance != mScrollHysteresis
+                        || minDwellMillis != mScrollDwellMillis)
+                || conflicts(settings, SETTING_FRAME_ALIGNED, frameAligned != mFrameAligned)) {
+            throw new IllegalStateException("The scroll container is already attached with different "
+                    + "scroll settings, configure them once through its ScrollCoordinator");
+        }
+        if ((settings & SETTING_AXIS) != 0) {
+            applyScrollAxis(axis);
+        }
+        if ((settings & SETTING_THRESHOLD) != 0) {
+            applyScrollThreshold(scrollThreshold);
+        }
+        if ((settings & SETTING_MIN_VELOCITY) != 0) {
+            applyMinScrollVelocity(minScrollVelocity);
+        }
+        if ((settings & SETTING_HYSTERESIS) != 0) {
+            applyScrollHysteresis(minReverseDistance, minDwellMillis);
+        }
+        if ((settings & SETTING_FRAME_ALIGNED) != 0) {
+            applyFrameAlignedScrollDispatch(frameAligned);
+        }
+        for (int i = 0; i < SETTING_COUNT; i++) {
+            if ((settings & (1 << i)) != 0) {
+                mSettingUsers[i]++;
+            }
+        }
+        return settings;
+    }
+
+    private boolean conflicts(int settings, int setting, boolean differs) {
+        return differs && (settings & setting) != 0
+                && mSettingUsers[Integer.numberOfTrailingZeros(setting)] > 0;
+    }
+
+    private void releaseSettings(int settings) {
+        for (int i = 0; i < SETTING_COUNT; i++) {
+            if ((settings & (1 << i)) != 0) {
+                mSettingUsers[i]--;
+            }
+        }
+    }
+
+    private void unbind(Binding binding) {
+        releaseSettings(binding.mSettings);
+        removeTarget(binding.mTarget);
+        mListeners = ArrayUtils.remove(mListeners, binding.mListener);
+        Object scrollListener = binding.mScrollListener;
+        if (scrollListener instanceof AbsListView.OnScrollListener) {
+            removeOnScrollListener((AbsListView.OnScrollListener) scrollListener);
+        }
+        if (scrollListener instanceof RecyclerView.OnScrollListener) {
+            removeOnScrollListener((RecyclerView.OnScrollListener) scrollListener);
+        }
+        if (scrollListener instanceof ObservableScrollView.OnScrollChangedListener) {
+            removeOnScrollChangedListener((ObservableScrollView.OnScrollChangedListener) scrollListener);
+        }
+        releaseIfUnused();
+    }
+
+    private boolean isUnused() {
+        return mTargets.length == 0 && mListeners.length == 0
+                && (mListViewDetector == null || !mListViewDetector.hasListeners())
+                && (mRecyclerViewDetector == null || !mRecyclerViewDetector.hasListeners())
+                && (mScrollViewDetector == null || !mScrollViewDetector.hasListeners());
+    }
+
+    private void releaseIfUnused() {
+        if (isUnused()) {
+            release();
+        }
+    }
+
+    private void release() {
+        if (mContainer == null) return;
+        mDirectionResolver.cancel();
+        if (mListViewDetector != null) {
+            ((AbsListView) mContainer).setOnScrollListener(null);
+        }
+        if (mRecyclerViewDetector != null) {
+            ((RecyclerView) mContainer).removeOnScrollListener(mRecyclerViewDetector);
+        }
+        if (mScrollViewDetector != null) {
+            ((ObservableScrollView) mContainer).removeOnScrollChangedListener(mScrollViewDetector);
+            mScrollViewDetector.cancelIdle(mContainer);
+        }
+        if (mViewDetector != null) {
+            mViewDetector.release();
+        }
+        mContainer.setTag(R.id.fab_scroll_coordinator, null);
+        mContainer = null;
+    }
+
+    public void add(@NonNull FloatingActionButton button) {
+        addTarget(button.getScrollTarget());
+    }
+
+    public void remove(@NonNull FloatingActionButton button) {
+        removeTarget(button.getScrollTarget());
+        releaseIfUnused();
+    }
+
+    public void add(@NonNull FloatingActionsMenu menu) {
+        addTarget(menu.getScrollTarget());
+    }
+
+    public void remove(@NonNull FloatingActionsMenu menu) {
+        removeTarget(menu.getScrollTarget());
+        releaseIfUnused();
+    }
+
+    public void addScrollDirectionListener(ScrollDirectionListener listener) {
+        mListeners = ArrayUtils.append(mListeners, listener);
+    }
+
+    /**
+     * Removes a listener. The coordinator removes itself from the container if nothing else is
+     * registered.
+     */
+    public void removeScrollDirectionListener(ScrollDirectionListener listener) {
+        mListeners = ArrayUtils.remove(mListeners, listener);
+        releaseIfUnused();
+    }
+
+    /**
+     * Chains a scroll listener behind the coordinator. Only valid for a coordinator of an
+     * {@link AbsListView}.
+     */
+    public void addOnScrollListener(AbsListView.OnScrollListener listener) {
+        if (mListViewDetector == null) {
+            throw new IllegalStateException("The coordinator is not attached to an AbsListView");
+        }
+        mListViewDetector.addOnScrollListener(listener);
+    }
+
+    public void removeOnScrollListener(AbsListView.OnScrollListener listener) {
+        if (mListViewDetector != null) {
+            mListViewDetector.removeOnScrollListener(listener);
+            releaseIfUnused();
+        }
+    }
+
+    /**
+     * Chains a scroll listener behind the coordinator. Only valid for a coordinator of a
+     * {@link RecyclerView}.
+     */
+    public void addOnScrollListener(RecyclerView.OnScrollListener listener) {
+        if (mRecyclerViewDetector == null) {
+            throw new IllegalStateException("The coordinator is not attached to a RecyclerView");
+        }
+        mRecyclerViewDetector.addOnScrollListener(listener);
+    }
+
+    public void removeOnScrollListener(RecyclerView.OnScrollListener listener) {
+        if (mRecyclerViewDetector != null) {
+            mRecyclerViewDetector.removeOnScrollListener(listener);
+            releaseIfUnused();
+        }
+    }
+
+    /**
+     * Chains a scroll listener behind the coordinator. Only valid for a coordinator of an
+     * {@link ObservableScrollView}.
+     */
+    public void addOnScrollChangedListener(ObservableScrollView.OnScrollChangedListener listener) {
+        if (mScrollViewDetector == null) {
+            throw new IllegalStateException("The coordinator is not attached to an ObservableScrollView");
+        }
+        mScrollViewDetector.addOnScrollChangedListener(listener);
+    }
+
+    public void removeOnScrollChangedListener(ObservableScrollView.OnScrollChangedListener listener) {
+        if (mScrollViewDetector != null) {
+            mScrollViewDetector.removeOnScrollChangedListener(listener);
+            releaseIfUnused();
+        }
+    }
+
+    /**
+     * Selects whether horizontal or vertical scrolling is observed. List views only scroll
+     * vertically and ignore this.
+     */
+    public void setScrollAxis(@FloatingActionButton.SCROLL_AXIS int axis) {
+        mOwnedSettings |= SETTING_AXIS;
+        applyScrollAxis(axis);
+    }
+
+    int getScrollAxis() {
+        return mScrollAxis;
+    }
+
+    private void applyScrollAxis(int axis) {
+        mScrollAxis = axis;
+        boolean horizontal = axis == FloatingActionButton.SCROLL_AXIS_HORIZONTAL;
+        if (mRecyclerViewDetector != null) {
+            mRecyclerViewDetector.setHorizontal(horizontal);
+        }
+        if (mScrollViewDetector != null) {
+            mScrollViewDetector.setHorizontal(horizontal);
+        }
+        if (mViewDetector != null) {
+            mViewDetector.setHorizontal(horizontal);
+        }
+    }
+
+    /**
+     * @see FloatingActionButton#setScrollThreshold(int)
+     */
+    public void setScrollThreshold(int scrollThreshold) {
+        mOwnedSettings |= SETTING_THRESHOLD;
+        applyScrollThreshold(scrollThreshold);
+    }
+
+    int getScrollThreshold() {
+        return mScrollThreshold;
+    }
+
+    private void applyScrollThreshold(int scrollThreshold) {
+        mScrollThreshold = scrollThreshold;
+        mDirectionResolver.setScrollThreshold(scrollThreshold);
+    }
+
+    /**
+     * @see FloatingActionButton#setMinScrollVelocity(float)
+     */
+    public void setMinScrollVelocity(float pixelsPerSecond) {
+        mOwnedSettings |= SETTING_MIN_VELOCITY;
+        applyMinScrollVelocity(pixelsPerSecond);
+    }
+
+    private void applyMinScrollVelocity(float pixelsPerSecond) {
+        mMinScrollVelocity = pixelsPerSecond;
+        mDirectionResolver.setMinVelocity(pixelsPerSecond / 1000f);
+    }
+
+    /**
+     * @see FloatingActionButton#setScrollHysteresis(int, long)
+     */
+    public void setScrollHysteresis(int minReverseDistance, long minDwellMillis) {
+        mOwnedSettings |= SETTING_HYSTERESIS;
+        applyScrollHysteresis(minReverseDistance, minDwellMillis);
+    }
+
+    private void applyScrollHysteresis(int minReverseDistance, long minDwellMillis) {
+        mScrollHysteresis = minReverseDistance;
+        mScrollDwellMillis = minDwellMillis;
+        mDirectionResolver.setHysteresis(minReverseDistance, minDwellMillis);
+    }
+
+    /**
+     * @see FloatingActionButton#setFrameAlignedScrollDispatch(boolean)
+     */
+    public void setFrameAlignedScrollDispatch(boolean frameAligned) {
+        mOwnedSettings |= SETTING_FRAME_ALIGNED;
+        applyFrameAlignedScrollDispatch(frameAligned);
+    }
+
+    private void applyFrameAlignedScrollDispatch(boolean frameAligned) {
+        mFrameAligned = frameAligned;
+        mDirectionResolver.setFrameAligned(frameAligned);
+    }
+
+    public int getSuppressedToggleCount() {
+        return mDirectionResolver.getSuppressedCount();
+    }
+
+    public int getDirectionChangeCount() {
+        return mDirectionResolver.getDirectionChangeCount();
+    }
+
+    /**
+     * Edges for views that only expose whether they can scroll further, which in turn is
+     * computed from the scroll offset, extent and range.
+     */
+    static int getEdges(View view, boolean horizontal) {
+        int edges = 0;
+        if (horizontal ? !view.canScrollHorizontally(-1) : !view.canScrollVertically(-1)) {
+            edges |= ScrollTarget.EDGE_START;
+        }
+        if (horizontal ? !view.canScrollHorizontally(1) : !view.canScrollVertically(1)) {
+            edges |= ScrollTarget.EDGE_END;
+        }
+        return edges;
+    }
+
+    private void addTarget(ScrollTarget target) {
+        mTargets = ArrayUtils.append(mTargets, target);
+    }
+
+    private void removeTarget(ScrollTarget target) {
+        ScrollTarget[] targets = mTargets;
+        for (ScrollTarget registered : targets) {
+            if (registered == target || (registered instanceof WeakScrollTarget
+                    && ((WeakScrollTarget) registered).mReference.get() == target)) {
+                mTargets = ArrayUtils.remove(mTargets, registered);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returned by the {@code attachTo*} methods, detaches exactly what that call registered.
+     */
+    public static final class Binding {
+        private ScrollCoordinator mCoordinator;
+        private final ScrollTarget mTarget;
+        private final ScrollDirectionListener mListener;
+        private final Object mScrollListener;
+        private final int mSettings;
+
+        private Binding(ScrollCoordinator coordinator, ScrollTarget target,
+                        ScrollDirectionListener listener, Object scrollListener, int settings) {
+            mCoordinator = coordinator;
+            mTarget = target;
+            mListener = listener;
+            mScrollListener = scrollListener;
+            mSettings = settings;
+        }
+
+        public boolean isAttached() {
+            return mCoordinator != null;
+        }
+
+        ScrollCoordinator getCoordinator() {
+            return mCoordinator;
+        }
+
+        /**
+         * Unregisters the button or menu and the listeners of this binding. Safe to call more
+         * than once.
+         */
+        public void detach() {
+            if (mCoordinator != null) {
+                mCoordinator.unbind(this);
+                mCoordinator = null;
+            }
+        }
+    }
+
+    /**
+     * Forwards to a target without keeping it reachable. A target that was collected is
+     * dropped on the next event, together with the coordinator if nothing else is bound.
+     */
+    private final class WeakScrollTarget implements ScrollTarget {
+        final WeakReference<ScrollTarget> mReference;
+        private final int mSettings;
+
+        WeakScrollTarget(ScrollTarget target, int settings) {
+            mReference = new WeakReference<ScrollTarget>(target);
+            mSettings = settings;
+        }
+
+        private ScrollTarget get() {
+            ScrollTarget target = mReference.get();
+            if (target == null && ArrayUtils.indexOf(mTargets, this) >= 0) {
+                mTargets = ArrayUtils.remove(mTargets, this);
+                // The binding of a collected target is never detached, so this is the last
+                // chance to release its settings and take the coordinator off the container
+                releaseSettings(mSettings);
+                releaseIfUnused();
+            }
+            return target;
+        }
+
+        @Override
+        public void onScrollDelta(int delta) {
+            ScrollTarget target = get();
+            if (target != null) {
+                target.onScrollDelta(delta);
+            }
+        }
+
+        @Override
+        public void onScrollIdle() {
+            ScrollTarget target = get();
+            if (target != null) {
+                target.onScrollIdle();
+            }
+        }
+
+        @Override
+        public void onScrollEdges(int edges) {
+            ScrollTarget target = get();
+            if (target != null) {
+                target.onScrollEdges(edges);
+            }
+        }
+
+        @Override
+        public void onScrollUp() {
+            ScrollTarget target = get();
+            if (target != null) {
+                target.onScrollUp();
+            }
+        }
+
+        @Override
+        public void onScrollDown() {
+            ScrollTarget target = get();
+            if (target != null) {
+                target.onScrollDown();
+            }
+        }
+    }
+}
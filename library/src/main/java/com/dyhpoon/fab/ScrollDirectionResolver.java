@@ -0,0 +1,253 @@
+package com.dyhpoon.fab;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns raw scroll deltas into {@link ScrollDirectionListener} callbacks. A direction is only
+ * reported when the content moves fast enough and the distance scrolled since the last
+ * reversal, plus the predicted fling, exceeds the scroll threshold. Slow drifts are ignored
+ * while fast flings are reported as soon as their velocity can be measured, which takes two
+ * timestamped events. Nothing is assumed about the interval between events, so a gesture
+ * leads to the same decisions on 60 Hz and 120 Hz displays.
+ * <p>
+ * Reversing the reported direction additionally requires hysteresis: a minimum distance
+ * scrolled in the new direction and a minimum time spent in the current one. Reversals that
+ * do not qualify are dropped and counted instead of restarting the show/hide animation.
+ * <p>
+ * In frame-aligned mode deltas are summed up and evaluated once per vsync, however many scroll
+ * events arrive within a frame.
+ */
+final class ScrollDirectionResolver {
+    private static final int DIRECTION_NONE = 0;
+    private static final int DIRECTION_UP = 1;
+    private static final int DIRECTION_DOWN = -1;
+
+    private final ScrollDirectionListener mListener;
+    private final ScrollVelocityTracker mVelocityTracker = new ScrollVelocityTracker();
+
+    private int mScrollThreshold;
+    private float mMinVelocity;
+    private float mDeceleration;
+    private int mMinReverseDistance;
+    private long mMinDwellMillis;
+
+    private int mDirection = DIRECTION_NONE;
+    private long mDirectionTime;
+    private int mAccumulatedDistance;
+
+    private int mDirectionChangeCount;
+    private int mSuppressedCount;
+    // Whether the current run of deltas has already been counted as a suppressed reversal
+    private boolean mSuppressing;
+
+    private boolean mFrameAligned;
+    private int mPendingDelta;
+    private long mPendingTime;
+    private boolean mFrameScheduled;
+    private FrameScheduler mFrameScheduler;
+
+    ScrollDirectionResolver(ScrollDirectionListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * @param frameScheduler delivers the frames in frame-aligned mode instead of
+     *                       {@link Choreographer}
+     */
+    ScrollDirectionResolver(ScrollDirectionListener listener, FrameScheduler frameScheduler) {
+        mListener = listener;
+        mFrameScheduler = frameScheduler;
+    }
+
+    /**
+     * @param scrollThreshold distance in pixels that has to be scrolled in one direction,
+     *                        including the predicted fling, before it is reported
+     */
+    void setScrollThreshold(int scrollThreshold) {
+        mScrollThreshold = scrollThreshold;
+    }
+
+    void setMinVelocity(float minVelocity) {
+        mMinVelocity = minVelocity;
+    }
+
+    /**
+     * @param minVelocity  minimum velocity in pixels per millisecond for a direction change
+     * @param deceleration fling deceleration in pixels per square millisecond used to predict
+     *                     the fling distance, 0 disables the prediction
+     */
+    void setVelocityThresholds(float minVelocity, float deceleration) {
+        mMinVelocity = minVelocity;
+        mDeceleration = deceleration;
+    }
+
+    /**
+     * @param minReverseDistance distance in pixels that has to be scrolled against the current
+     *                           direction before it may be reversed
+     * @param minDwellMillis     time a direction is kept at least before it may be reversed
+     */
+    void setHysteresis(int minReverseDistance, long minDwellMillis) {
+        mMinReverseDistance = minReverseDistance;
+        mMinDwellMillis = minDwellMillis;
+    }
+
+    /**
+     * Only has an effect on Jelly Bean and above, where {@link Choreographer} is available.
+     * Turning it off evaluates the delta that is still waiting for the next frame right away.
+     */
+    void setFrameAligned(boolean frameAligned) {
+        if (frameAligned && mFrameScheduler == null
+                && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mFrameScheduler = new ChoreographerFrameScheduler();
+        }
+        mFrameAligned = frameAligned && mFrameScheduler != null;
+        if (!mFrameAligned && mFrameScheduled) {
+            cancelFrame();
+            int delta = mPendingDelta;
+            mPendingDelta = 0;
+            evaluate(delta, mPendingTime);
+        }
+    }
+
+    int getDirectionChangeCount() {
+        return mDirectionChangeCount;
+    }
+
+    int getSuppressedCount() {
+        return mSuppressedCount;
+    }
+
+    /**
+     * @param delta scroll distance since the previous event, positive when the content moves
+     *              towards its end
+     */
+    void onScroll(int delta, long timeMillis) {
+        if (delta == 0) return;
+        if (mFrameAligned) {
+            mPendingDelta += delta;
+            mPendingTime = timeMillis;
+            if (!mFrameScheduled) {
+                mFrameScheduled = true;
+                mFrameScheduler.schedule(this);
+            }
+        } else {
+            evaluate(delta, timeMillis);
+        }
+    }
+
+    private void evaluate(int delta, long timeMillis) {
+        if (delta == 0) return;
+        if ((delta > 0) == (mAccumulatedDistance > 0)) {
+            mAccumulatedDistance += delta;
+        } else {
+            mAccumulatedDistance = delta;
+            mSuppressing = false;
+        }
+        mVelocityTracker.addDelta(delta, timeMillis);
+        if (!mVelocityTracker.hasVelocity()) return;
+        float velocity = mVelocityTracker.getVelocity();
+        if (Math.abs(velocity) < mMinVelocity) return;
+
+        float distance = mAccumulatedDistance + predictFlingDistance(velocity);
+        if (Math.abs(distance) <= mScrollThreshold) return;
+
+        int direction = distance > 0 ? DIRECTION_UP : DIRECTION_DOWN;
+        if (direction != mDirection) {
+            if (mDirection != DIRECTION_NONE && !canReverse(timeMillis)) {
+                if (!mSuppressing) {
+                    mSuppressing = true;
+                    mSuppressedCount++;
+                }
+                return;
+            }
+            mDirection = direction;
+            mDirectionTime = timeMillis;
+            mDirectionChangeCount++;
+        }
+        if (direction == DIRECTION_UP) {
+            mListener.onScrollUp();
+        } else {
+            mListener.onScrollDown();
+        }
+    }
+
+    void reset() {
+        mVelocityTracker.clear();
+        mAccumulatedDistance = 0;
+        mSuppressing = false;
+    }
+
+    /**
+     * Drops a delta that is still waiting for the next frame, so that the pending frame
+     * callback no longer holds on to the listener.
+     */
+    void cancel() {
+        cancelFrame();
+        mPendingDelta = 0;
+    }
+
+    /**
+     * Evaluates the deltas summed up since the previous frame.
+     */
+    void onFrame(long frameTimeMillis) {
+        mFrameScheduled = false;
+        int delta = mPendingDelta;
+        mPendingDelta = 0;
+        evaluate(delta, frameTimeMillis);
+    }
+
+    private void cancelFrame() {
+        if (mFrameScheduled) {
+            mFrameScheduled = false;
+            mFrameScheduler.cancel(this);
+        }
+    }
+
+    private boolean canReverse(long timeMillis) {
+        return Math.abs(mAccumulatedDistance) >= mMinReverseDistance
+                && timeMillis - mDirectionTime >= mMinDwellMillis;
+    }
+
+    private float predictFlingDistance(float velocity) {
+        if (mDeceleration <= 0f) return 0f;
+        return velocity * Math.abs(velocity) / (2f * mDeceleration);
+    }
+
+    /**
+     * Calls {@link #onFrame(long)} back on the next frame.
+     */
+    interface FrameScheduler {
+        void schedule(ScrollDirectionResolver resolver);
+
+        void cancel(ScrollDirectionResolver resolver);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static final class ChoreographerFrameScheduler implements FrameScheduler,
+            Choreographer.FrameCallback {
+        private ScrollDirectionResolver mResolver;
+
+        @Override
+        public void schedule(ScrollDirectionResolver resolver) {
+            mResolver = resolver;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        @Override
+        public void cancel(ScrollDirectionResolver resolver) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            mResolver = null;
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            ScrollDirectionResolver resolver = mResolver;
+            mResolver = null;
+            resolver.onFrame(TimeUnit.NANOSECONDS.toMillis(frameTimeNanos));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.dyhpoon.fab;
+
+/**
+ * Evaluates the {@code EDGE_POLICY_*} flags of {@link FloatingActionButton} against the edges
+ * the scroll container currently touches.
+ */
+final class ScrollEdgePolicy {
+
+    private ScrollEdgePolicy() {
+    }
+
+    static boolean keepsVisible(int policy, int edges) {
+        if ((policy & FloatingActionButton.EDGE_POLICY_SHOW_WHEN_CONTENT_FITS) != 0
+                && edges == (ScrollTarget.EDGE_START | ScrollTarget.EDGE_END)) {
+            return true;
+        }
+        return (policy & FloatingActionButton.EDGE_POLICY_SHOW_AT_START) != 0
+                && (edges & ScrollTarget.EDGE_START) != 0;
+    }
+
+    static boolean keepsHidden(int policy, int edges) {
+        return (policy & FloatingActionButton.EDGE_POLICY_HIDE_AT_END) != 0
+                && (edges & ScrollTarget.EDGE_END) != 0
+                && !keepsVisible(policy, edges);
+    }
+}
@@ -0,0 +1,26 @@
+package com.dyhpoon.fab;
+
+/**
+ * Receives everything a scroll container reports: raw deltas and idle events in addition to
+ * the resolved scroll direction.
+ */
+interface ScrollTarget extends ScrollDirectionListener {
+    int EDGE_START = 1;
+    int EDGE_END = 1 << 1;
+
+    /**
+     * @param delta scroll distance since the previous event, positive when the content moves
+     *              towards its end
+     */
+    void onScrollDelta(int delta);
+
+    void onScrollIdle();
+
+    /**
+     * Reported before the delta of the same event.
+     *
+     * @param edges combination of {@link #EDGE_START} and {@link #EDGE_END} the container
+     *              currently touches, both when its content fits without scrolling
+     */
+    void onScrollEdges(int edges);
+}
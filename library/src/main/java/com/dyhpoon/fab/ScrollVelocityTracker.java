@@ -0,0 +1,74 @@
+package com.dyhpoon.fab;
+
+/**
+ * Estimates the scroll velocity from the most recent scroll deltas in the current direction.
+ * Samples are kept in primitive ring buffers, so tracking does not allocate.
+ */
+final class ScrollVelocityTracker {
+    private static final int HISTORY_SIZE = 20;
+    // Samples older than this, relative to the newest one, are ignored
+    private static final long HORIZON_MILLIS = 100;
+
+    private final long[] mTimes = new long[HISTORY_SIZE];
+    private final int[] mDeltas = new int[HISTORY_SIZE];
+    private int mNewest = -1;
+    private int mCount;
+
+    void addDelta(int delta, long timeMillis) {
+        mNewest = (mNewest + 1) % HISTORY_SIZE;
+        mTimes[mNewest] = timeMillis;
+        mDeltas[mNewest] = delta;
+        if (mCount < HISTORY_SIZE) {
+            mCount++;
+        }
+    }
+
+    /**
+     * @return whether an earlier sample in the same direction and within the horizon allows
+     * measuring the interval of the newest delta
+     */
+    boolean hasVelocity() {
+        if (mCount < 2) return false;
+        long newestTime = mTimes[mNewest];
+        boolean forward = mDeltas[mNewest] > 0;
+        for (int i = 1; i < mCount; i++) {
+            int index = (mNewest - i + HISTORY_SIZE) % HISTORY_SIZE;
+            if (!isInRange(index, newestTime, forward)) break;
+            if (mTimes[index] < newestTime) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return velocity in pixels per millisecond, positive towards the end of the content, or
+     * 0 as long as {@link #hasVelocity()} is false
+     */
+    float getVelocity() {
+        if (!hasVelocity()) return 0f;
+        long newestTime = mTimes[mNewest];
+        boolean forward = mDeltas[mNewest] > 0;
+        long oldestTime = newestTime;
+        int oldestDelta = 0;
+        int distance = 0;
+        for (int i = 0; i < mCount; i++) {
+            int index = (mNewest - i + HISTORY_SIZE) % HISTORY_SIZE;
+            if (!isInRange(index, newestTime, forward)) break;
+            distance += mDeltas[index];
+            oldestTime = mTimes[index];
+            oldestDelta = mDeltas[index];
+        }
+        // The oldest delta was travelled before oldestTime, so it is not part of the interval
+        return (float) (distance - oldestDelta) / (newestTime - oldestTime);
+    }
+
+    // Samples from before a reversal would drag the velocity towards 0 at a rate that
+    // depends on how many of them fit into the horizon
+    private boolean isInRange(int index, long newestTime, boolean forward) {
+        return newestTime - mTimes[index] <= HORIZON_MILLIS && (mDeltas[index] > 0) == forward;
+    }
+
+    void clear() {
+        mNewest = -1;
+        mCount = 0;
+    }
+}
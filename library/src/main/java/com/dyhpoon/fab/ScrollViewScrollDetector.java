@@ -1,32 +1,61 @@
 package com.dyhpoon.fab;
 
+import android.view.View;
 import android.widget.ScrollView;
 
-abstract class ScrollViewScrollDetector implements ObservableScrollView.OnScrollChangedListener {
-    private int mLastScrollY;
-    private int mScrollThreshold;
-    private ObservableScrollView.OnScrollChangedListener mScrollViewChangedListener;
+class ScrollViewScrollDetector implements ObservableScrollView.OnScrollChangedListener {
+    // ScrollView has no scroll state callbacks, so it counts as idle after this long without events
+    private static final int IDLE_DELAY_MILLIS = 100;
+    private static final ObservableScrollView.OnScrollChangedListener[] NO_LISTENERS =
+            new ObservableScrollView.OnScrollChangedListener[0];
 
-    abstract void onScrollUp();
+    private final ScrollTarget mTarget;
+    private int mLastScrollX;
+    private int mLastScrollY;
+    private boolean mHorizontal;
+    private ObservableScrollView.OnScrollChangedListener[] mScrollViewChangedListeners = NO_LISTENERS;
+    private final Runnable mIdleRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mTarget.onScrollIdle();
+        }
+    };
 
-    abstract void onScrollDown();
+    ScrollViewScrollDetector(ScrollTarget target) {
+        mTarget = target;
+    }
 
     @Override
     public void onScrollChanged(ScrollView who, int l, int t, int oldl, int oldt) {
-        boolean isSignificantDelta = Math.abs(t - mLastScrollY) > mScrollThreshold;
-        if (isSignificantDelta) {
-            if (t > mLastScrollY) {
-                onScrollUp();
-            } else {
-                onScrollDown();
-            }
+        ObservableScrollView.OnScrollChangedListener[] listeners = mScrollViewChangedListeners;
+        for (ObservableScrollView.OnScrollChangedListener listener : listeners) {
+            listener.onScrollChanged(who, l, t, oldl, oldt);
         }
+        who.removeCallbacks(mIdleRunnable);
+        who.postDelayed(mIdleRunnable, IDLE_DELAY_MILLIS);
+        mTarget.onScrollEdges(ScrollCoordinator.getEdges(who, mHorizontal));
+        mTarget.onScrollDelta(mHorizontal ? l - mLastScrollX : t - mLastScrollY);
+        mLastScrollX = l;
         mLastScrollY = t;
-        if (mScrollViewChangedListener != null)
-            mScrollViewChangedListener.onScrollChanged(who, l, t, oldl, oldt);
     }
 
-    public void setScrollThreshold(int scrollThreshold) {
-        mScrollThreshold = scrollThreshold;
+    void setHorizontal(boolean horizontal) {
+        mHorizontal = horizontal;
+    }
+
+    void addOnScrollChangedListener(ObservableScrollView.OnScrollChangedListener listener) {
+        mScrollViewChangedListeners = ArrayUtils.append(mScrollViewChangedListeners, listener);
+    }
+
+    void removeOnScrollChangedListener(ObservableScrollView.OnScrollChangedListener listener) {
+        mScrollViewChangedListeners = ArrayUtils.remove(mScrollViewChangedListeners, listener);
+    }
+
+    boolean hasListeners() {
+        return mScrollViewChangedListeners.length > 0;
+    }
+
+    void cancelIdle(View who) {
+        who.removeCallbacks(mIdleRunnable);
     }
-}
\ No newline at end of file
+}
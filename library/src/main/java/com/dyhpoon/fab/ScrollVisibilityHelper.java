@@ -0,0 +1,398 @@
+package com.dyhpoon.fab;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.support.v7.widget.RecyclerView;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
+import android.widget.AbsListView;
+
+import com.nineoldandroids.view.ViewHelper;
+import com.nineoldandroids.view.ViewPropertyAnimator;
+
+/**
+ * Shows and hides a {@link FloatingActionButton} or {@link FloatingActionsMenu} in response to
+ * the scroll container it is attached to. Holds the scroll configuration of the view, its
+ * binding to the {@link ScrollCoordinator}, the quick return state and the show/hide request
+ * that waits for the first layout. Both widgets delegate their scroll API to it.
+ */
+final class ScrollVisibilityHelper {
+    private static final int TRANSLATE_DURATION_MILLIS = 200;
+
+    private final View mView;
+    private final Interpolator mInterpolator = new AccelerateDecelerateInterpolator();
+
+    private boolean mVisible = true;
+    // Hiding is refused while pinned, e.g. while a menu is expanded
+    private boolean mPinned;
+    private boolean mQuickReturn;
+    private QuickReturnHelper mQuickReturnHelper;
+    private int mScrollAxis = FloatingActionButton.SCROLL_AXIS_VERTICAL;
+    private int mEdgePolicy = FloatingActionButton.EDGE_POLICY_NONE;
+    private int mScrollEdges;
+    private int mScrollThreshold;
+    private float mMinScrollVelocity;
+    private int mScrollHysteresis;
+    private long mScrollDwellMillis;
+    private boolean mFrameAlignedScroll;
+    // The ScrollCoordinator.SETTING_* flags of the settings set through a setter or attribute
+    private int mExplicitSettings;
+    private int mBoundSettings;
+    private boolean mWeakScrollBinding;
+    private ScrollCoordinator.Binding mScrollBinding;
+
+    private boolean mHasPendingVisibility;
+    private boolean mPendingVisible;
+    private boolean mPendingAnimate;
+    private boolean mPendingListenerAdded;
+    private final ViewTreeObserver.OnPreDrawListener mPendingVisibilityListener =
+            new ViewTreeObserver.OnPreDrawListener() {
+                @Override
+                public boolean onPreDraw() {
+                    mHasPendingVisibility = false;
+                    removePendingVisibilityListener();
+                    toggle(mPendingVisible, mPendingAnimate, true);
+                    return true;
+                }
+            };
+
+    private final ScrollTarget mScrollTarget = new ScrollTarget() {
+        @Override
+        public void onScrollUp() {
+            if (!mQuickReturn && !ScrollEdgePolicy.keepsVisible(mEdgePolicy, mScrollEdges)) {
+                hide(true);
+            }
+        }
+
+        @Override
+        public void onScrollDown() {
+            if (!mQuickReturn && !ScrollEdgePolicy.keepsHidden(mEdgePolicy, mScrollEdges)) {
+                show(true);
+            }
+        }
+
+        @Override
+        public void onScrollEdges(int edges) {
+            mScrollEdges = edges;
+            if (mQuickReturn) return;
+            if (ScrollEdgePolicy.keepsVisible(mEdgePolicy, edges)) {
+                show(true);
+            } else if (ScrollEdgePolicy.keepsHidden(mEdgePolicy, edges)) {
+                hide(true);
+            }
+        }
+
+        @Override
+        public void onScrollDelta(int delta) {
+            if (mQuickReturn && !mPinned) {
+                if (mQuickReturnHelper == null) {
+                    mQuickReturnHelper = new QuickReturnHelper(mView);
+                }
+                mQuickReturnHelper.setHorizontal(isHorizontal());
+                mQuickReturnHelper.onScrollDelta(delta, getHiddenTranslation());
+            }
+        }
+
+        @Override
+        public void onScrollIdle() {
+            if (mQuickReturn && mQuickReturnHelper != null && mView.getHeight() > 0) {
+                mVisible = mQuickReturnHelper.snap(getHiddenTranslation());
+            }
+        }
+    };
+
+    ScrollVisibilityHelper(View view, FabMetrics metrics) {
+        mView = view;
+        mScrollThreshold = metrics.scrollThreshold;
+        mMinScrollVelocity = metrics.minScrollVelocity;
+        mScrollHysteresis = metrics.scrollHysteresis;
+        mScrollDwellMillis = metrics.scrollDwellMillis;
+    }
+
+    void readAttributes(Context context, AttributeSet attributeSet) {
+        TypedArray attr = context.obtainStyledAttributes(attributeSet, R.styleable.ScrollVisibility, 0, 0);
+        try {
+            mQuickReturn = attr.getBoolean(R.styleable.ScrollVisibility_fab_quickReturn, false);
+            mEdgePolicy = attr.getInt(R.styleable.ScrollVisibility_fab_edgePolicy,
+                    FloatingActionButton.EDGE_POLICY_NONE);
+            if (attr.hasValue(R.styleable.ScrollVisibility_fab_scrollAxis)) {
+                mScrollAxis = attr.getInt(R.styleable.ScrollVisibility_fab_scrollAxis, mScrollAxis);
+                mExplicitSettings |= ScrollCoordinator.SETTING_AXIS;
+            }
+            if (attr.hasValue(R.styleable.ScrollVisibility_fab_scrollThreshold)) {
+                mScrollThreshold = attr.getDimensionPixelOffset(
+                        R.styleable.ScrollVisibility_fab_scrollThreshold, mScrollThreshold);
+                mExplicitSettings |= ScrollCoordinator.SETTING_THRESHOLD;
+            }
+            if (attr.hasValue(R.styleable.ScrollVisibility_fab_scrollMinVelocity)) {
+                mMinScrollVelocity = attr.getDimension(
+                        R.styleable.ScrollVisibility_fab_scrollMinVelocity, mMinScrollVelocity);
+                mExplicitSettings |= ScrollCoordinator.SETTING_MIN_VELOCITY;
+            }
+            if (attr.hasValue(R.styleable.ScrollVisibility_fab_scrollHysteresis)
+                    || attr.hasValue(R.styleable.ScrollVisibility_fab_scrollDwellTime)) {
+                mScrollHysteresis = attr.getDimensionPixelOffset(
+                        R.styleable.ScrollVisibility_fab_scrollHysteresis, mScrollHysteresis);
+                mScrollDwellMillis = attr.getInt(
+                        R.styleable.ScrollVisibility_fab_scrollDwellTime, (int) mScrollDwellMillis);
+                mExplicitSettings |= ScrollCoordinator.SETTING_HYSTERESIS;
+            }
+        } finally {
+            attr.recycle();
+        }
+    }
+
+    void onAttachedToWindow() {
+        if (mHasPendingVisibility && !mPendingListenerAdded) {
+            mView.getViewTreeObserver().addOnPreDrawListener(mPendingVisibilityListener);
+            mPendingListenerAdded = true;
+        }
+    }
+
+    void onDetachedFromWindow() {
+        removePendingVisibilityListener();
+    }
+
+    boolean isVisible() {
+        return mVisible;
+    }
+
+    void show(boolean animate) {
+        toggle(true, animate, false);
+    }
+
+    void hide(boolean animate) {
+        if (!mPinned) {
+            toggle(false, animate, false);
+        }
+    }
+
+    void setPinned(boolean pinned) {
+        mPinned = pinned;
+    }
+
+    boolean hasPendingVisibility() {
+        return mHasPendingVisibility;
+    }
+
+    private void toggle(final boolean visible, final boolean animate, boolean force) {
+        if (mVisible != visible || force) {
+            mVisible = visible;
+            int height = mView.getHeight();
+            if (height == 0 && !force) {
+                ViewTreeObserver vto = mView.getViewTreeObserver();
+                if (vto.isAlive()) {
+                    // Only the latest request is replayed once the view is laid out
+                    mHasPendingVisibility = true;
+                    mPendingVisible = visible;
+                    mPendingAnimate = animate;
+                    if (!mPendingListenerAdded) {
+                        vto.addOnPreDrawListener(mPendingVisibilityListener);
+                        mPendingListenerAdded = true;
+                    }
+                    return;
+                }
+            }
+            if (mHasPendingVisibility) {
+                mHasPendingVisibility = false;
+                removePendingVisibilityListener();
+            }
+            int translation = visible ? 0 : getHiddenTranslation();
+            boolean horizontal = isHorizontal();
+            if (animate) {
+                ViewPropertyAnimator animator = ViewPropertyAnimator.animate(mView)
+                        .setInterpolator(mInterpolator)
+                        .setDuration(TRANSLATE_DURATION_MILLIS);
+                if (horizontal) {
+                    animator.translationX(translation);
+                } else {
+                    animator.translationY(translation);
+                }
+            } else if (horizontal) {
+                ViewHelper.setTranslationX(mView, translation);
+            } else {
+                ViewHelper.setTranslationY(mView, translation);
+            }
+        }
+    }
+
+    private void removePendingVisibilityListener() {
+        if (mPendingListenerAdded) {
+            ViewTreeObserver vto = mView.getViewTreeObserver();
+            if (vto.isAlive()) {
+                vto.removeOnPreDrawListener(mPendingVisibilityListener);
+            }
+            mPendingListenerAdded = false;
+        }
+    }
+
+    private boolean isHorizontal() {
+        return mScrollAxis == FloatingActionButton.SCROLL_AXIS_HORIZONTAL;
+    }
+
+    private int getHiddenTranslation() {
+        ViewGroup.LayoutParams layoutParams = mView.getLayoutParams();
+        ViewGroup.MarginLayoutParams marginParams = layoutParams instanceof ViewGroup.MarginLayoutParams
+                ? (ViewGroup.MarginLayoutParams) layoutParams : null;
+        if (isHorizontal()) {
+            return mView.getWidth() + (marginParams != null ? marginParams.rightMargin : 0);
+        }
+        return mView.getHeight() + (marginParams != null ? marginParams.bottomMargin : 0);
+    }
+
+    void setQuickReturnEnabled(boolean quickReturn) {
+        mQuickReturn = quickReturn;
+    }
+
+    boolean isQuickReturnEnabled() {
+        return mQuickReturn;
+    }
+
+    void setScrollThreshold(int scrollThreshold) {
+        mScrollThreshold = scrollThreshold;
+        mExplicitSettings |= ScrollCoordinator.SETTING_THRESHOLD;
+    }
+
+    void setMinScrollVelocity(float pixelsPerSecond) {
+        mMinScrollVelocity = pixelsPerSecond;
+        mExplicitSettings |= ScrollCoordinator.SETTING_MIN_VELOCITY;
+    }
+
+    void setScrollHysteresis(int minReverseDistance, long minDwellMillis) {
+        mScrollHysteresis = minReverseDistance;
+        mScrollDwellMillis = minDwellMillis;
+        mExplicitSettings |= ScrollCoordinator.SETTING_HYSTERESIS;
+    }
+
+    void setFrameAlignedScrollDispatch(boolean frameAligned) {
+        mFrameAlignedScroll = frameAligned;
+        mExplicitSettings |= ScrollCoordinator.SETTING_FRAME_ALIGNED;
+    }
+
+    boolean isFrameAlignedScrollDispatch() {
+        return mFrameAlignedScroll;
+    }
+
+    void setScrollAxis(int axis) {
+        mExplicitSettings |= ScrollCoordinator.SETTING_AXIS;
+        updateScrollAxis(axis);
+    }
+
+    private void updateScrollAxis(int axis) {
+        if (axis != mScrollAxis) {
+            ViewPropertyAnimator.animate(mView).cancel();
+            ViewHelper.setTranslationX(mView, 0);
+            ViewHelper.setTranslationY(mView, 0);
+            mScrollAxis = axis;
+            if (!mVisible) {
+                toggle(false, false, true);
+            }
+        }
+    }
+
+    int getScrollAxis() {
+        return mScrollAxis;
+    }
+
+    void setEdgePolicy(int policy) {
+        mEdgePolicy = policy;
+    }
+
+    int getEdgePolicy() {
+        return mEdgePolicy;
+    }
+
+    int getSuppressedToggleCount() {
+        ScrollCoordinator coordinator = getScrollCoordinator();
+        return coordinator != null ? coordinator.getSuppressedToggleCount() : 0;
+    }
+
+    int getDirectionChangeCount() {
+        ScrollCoordinator coordinator = getScrollCoordinator();
+        return coordinator != null ? coordinator.getDirectionChangeCount() : 0;
+    }
+
+    private ScrollCoordinator getScrollCoordinator() {
+        return mScrollBinding != null ? mScrollBinding.getCoordinator() : null;
+    }
+
+    ScrollCoordinator.Binding attachToListView(AbsListView listView,
+                                               ScrollDirectionListener scrollDirectionListener,
+                                               AbsListView.OnScrollListener onScrollListener) {
+        detach();
+        ScrollCoordinator coordinator = configure(ScrollCoordinator.of(listView));
+        if (onScrollListener != null) {
+            coordinator.addOnScrollListener(onScrollListener);
+        }
+        return attachToCoordinator(coordinator, scrollDirectionListener, onScrollListener);
+    }
+
+    ScrollCoordinator.Binding attachToRecyclerView(RecyclerView recyclerView,
+                                                   ScrollDirectionListener scrollDirectionListener,
+                                                   RecyclerView.OnScrollListener onScrollListener) {
+        detach();
+        ScrollCoordinator coordinator = configure(ScrollCoordinator.of(recyclerView));
+        if (onScrollListener != null) {
+            coordinator.addOnScrollListener(onScrollListener);
+        }
+        return attachToCoordinator(coordinator, scrollDirectionListener, onScrollListener);
+    }
+
+    ScrollCoordinator.Binding attachToScrollView(ObservableScrollView scrollView,
+                                                 ScrollDirectionListener scrollDirectionListener,
+                                                 ObservableScrollView.OnScrollChangedListener onScrollChangedListener) {
+        detach();
+        ScrollCoordinator coordinator = configure(ScrollCoordinator.of(scrollView));
+        if (onScrollChangedListener != null) {
+            coordinator.addOnScrollChangedListener(onScrollChangedListener);
+        }
+        return attachToCoordinator(coordinator, scrollDirectionListener, onScrollChangedListener);
+    }
+
+    ScrollCoordinator.Binding attachToView(View view, ScrollDirectionListener scrollDirectionListener) {
+        detach();
+        return attachToCoordinator(configure(ScrollCoordinator.of(view)), scrollDirectionListener, null);
+    }
+
+    // Before registering anything, so that a conflict leaves the coordinator untouched
+    private ScrollCoordinator configure(ScrollCoordinator coordinator) {
+        mBoundSettings = coordinator.configure(mExplicitSettings, mScrollAxis, mScrollThreshold,
+                mMinScrollVelocity, mScrollHysteresis, mScrollDwellMillis, mFrameAlignedScroll);
+        // Without an axis of its own the view hides along the one the coordinator observes
+        if ((mExplicitSettings & ScrollCoordinator.SETTING_AXIS) == 0) {
+            updateScrollAxis(coordinator.getScrollAxis());
+        }
+        return coordinator;
+    }
+
+    private ScrollCoordinator.Binding attachToCoordinator(ScrollCoordinator coordinator,
+                                                          ScrollDirectionListener scrollDirectionListener,
+                                                          Object scrollListener) {
+        mScrollBinding = coordinator.bind(mScrollTarget, mWeakScrollBinding, scrollDirectionListener,
+                scrollListener, mBoundSettings);
+        return mScrollBinding;
+    }
+
+    void detach() {
+        if (mScrollBinding != null) {
+            mScrollBinding.detach();
+            mScrollBinding = null;
+        }
+    }
+
+    void setWeakScrollBinding(boolean weak) {
+        mWeakScrollBinding = weak;
+    }
+
+    boolean isWeakScrollBinding() {
+        return mWeakScrollBinding;
+    }
+
+    ScrollTarget getScrollTarget() {
+        return mScrollTarget;
+    }
+}
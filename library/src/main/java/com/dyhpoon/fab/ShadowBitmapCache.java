@@ -0,0 +1,103 @@
+package com.dyhpoon.fab;
+
+import android.graphics.Bitmap;
+import android.graphics.BlurMaskFilter;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.LruCache;
+
+/**
+ * Renders the blurred circular shadow of a button into an alpha-only bitmap and keeps the
+ * result in a size-bounded LRU cache. Replaces the per-density shadow assets.
+ */
+final class ShadowBitmapCache {
+    private static final int MAX_BYTES = 1024 * 1024;
+
+    private static final LruCache<Key, Bitmap> sCache = new LruCache<Key, Bitmap>(MAX_BYTES) {
+        @Override
+        protected int sizeOf(Key key, Bitmap value) {
+            return value.getRowBytes() * value.getHeight();
+        }
+    };
+
+    private static final Key sLookupKey = new Key();
+
+    private ShadowBitmapCache() {
+    }
+
+    /**
+     * @param size         diameter of the button in pixels
+     * @param shadowSize   space reserved around the button for the shadow in pixels
+     * @param blurRadius   blur radius of the shadow in pixels
+     * @param offsetY      vertical offset of the shadow in pixels
+     * @param color        shadow color, only its alpha is kept
+     */
+    static Bitmap get(int size, int shadowSize, float blurRadius, float offsetY, int color) {
+        sLookupKey.set(size, shadowSize, blurRadius, offsetY, color);
+        Bitmap bitmap = sCache.get(sLookupKey);
+        if (bitmap == null) {
+            bitmap = createShadow(size, shadowSize, blurRadius, offsetY, color);
+            Key key = new Key();
+            key.set(size, shadowSize, blurRadius, offsetY, color);
+            sCache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    static Bitmap createShadow(int size, int shadowSize, float blurRadius, float offsetY,
+                               int color) {
+        int dimension = size + shadowSize * 2;
+        Bitmap bitmap = Bitmap.createBitmap(dimension, dimension, Bitmap.Config.ALPHA_8);
+        Canvas canvas = new Canvas(bitmap);
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(color);
+        if (blurRadius > 0) {
+            paint.setMaskFilter(new BlurMaskFilter(blurRadius, BlurMaskFilter.Blur.NORMAL));
+        }
+        float center = dimension / 2f;
+        canvas.drawCircle(center, center + offsetY, size / 2f, paint);
+        return bitmap;
+    }
+
+    static void clear() {
+        sCache.evictAll();
+    }
+
+    private static final class Key {
+        private int mSize;
+        private int mShadowSize;
+        private float mBlurRadius;
+        private float mOffsetY;
+        private int mColor;
+
+        void set(int size, int shadowSize, float blurRadius, float offsetY, int color) {
+            mSize = size;
+            mShadowSize = shadowSize;
+            mBlurRadius = blurRadius;
+            mOffsetY = offsetY;
+            mColor = color;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return mSize == key.mSize
+                    && mShadowSize == key.mShadowSize
+                    && Float.compare(mBlurRadius, key.mBlurRadius) == 0
+                    && Float.compare(mOffsetY, key.mOffsetY) == 0
+                    && mColor == key.mColor;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mSize;
+            result = 31 * result + mShadowSize;
+            result = 31 * result + Float.floatToIntBits(mBlurRadius);
+            result = 31 * result + Float.floatToIntBits(mOffsetY);
+            result = 31 * result + mColor;
+            return result;
+        }
+    }
+}
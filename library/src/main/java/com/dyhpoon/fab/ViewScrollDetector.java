@@ -0,0 +1,76 @@
+package com.dyhpoon.fab;
+
+import android.view.View;
+
+/**
+ * Reports scroll deltas of an arbitrary view by polling its scroll offset whenever
+ * something in its window scrolls. Works with any view that scrolls its own content, e.g.
+ * NestedScrollView, HorizontalScrollView or WebView, without subclassing it.
+ */
+class ViewScrollDetector implements View.OnAttachStateChangeListener {
+    // Plain views have no scroll state callbacks, so they count as idle after this long without events
+    private static final int IDLE_DELAY_MILLIS = 100;
+
+    private final ScrollTarget mTarget;
+    private final View mView;
+    private int mLastScrollX;
+    private int mLastScrollY;
+    private boolean mHorizontal;
+    private WindowScrollObserver mWindowObserver;
+    private final Runnable mIdleRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mTarget.onScrollIdle();
+        }
+    };
+
+    ViewScrollDetector(ScrollTarget target, View view) {
+        mTarget = target;
+        mView = view;
+        mLastScrollX = view.getScrollX();
+        mLastScrollY = view.getScrollY();
+        view.addOnAttachStateChangeListener(this);
+        if (view.getWindowToken() != null) {
+            onViewAttachedToWindow(view);
+        }
+    }
+
+    @Override
+    public void onViewAttachedToWindow(View v) {
+        mLastScrollX = mView.getScrollX();
+        mLastScrollY = mView.getScrollY();
+        mWindowObserver = WindowScrollObserver.of(mView);
+        mWindowObserver.add(this);
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(View v) {
+        if (mWindowObserver != null) {
+            mWindowObserver.remove(this);
+            mWindowObserver = null;
+        }
+        mView.removeCallbacks(mIdleRunnable);
+    }
+
+    void onWindowScrollChanged() {
+        int scrollX = mView.getScrollX();
+        int scrollY = mView.getScrollY();
+        int delta = mHorizontal ? scrollX - mLastScrollX : scrollY - mLastScrollY;
+        mLastScrollX = scrollX;
+        mLastScrollY = scrollY;
+        if (delta == 0) return;
+        mView.removeCallbacks(mIdleRunnable);
+        mView.postDelayed(mIdleRunnable, IDLE_DELAY_MILLIS);
+        mTarget.onScrollEdges(ScrollCoordinator.getEdges(mView, mHorizontal));
+        mTarget.onScrollDelta(delta);
+    }
+
+    void setHorizontal(boolean horizontal) {
+        mHorizontal = horizontal;
+    }
+
+    void release() {
+        mView.removeOnAttachStateChangeListener(this);
+        onViewDetachedFromWindow(mView);
+    }
+}
@@ -0,0 +1,54 @@
+package com.dyhpoon.fab;
+
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * The one {@link ViewTreeObserver.OnScrollChangedListener} of a window. The callback does not
+ * tell which view scrolled, so every registered detector compares its view's scroll offset.
+ * Stored as a tag of the root view.
+ */
+final class WindowScrollObserver implements ViewTreeObserver.OnScrollChangedListener {
+    private static final ViewScrollDetector[] NO_DETECTORS = new ViewScrollDetector[0];
+
+    private final View mRootView;
+    private ViewScrollDetector[] mDetectors = NO_DETECTORS;
+
+    private WindowScrollObserver(View rootView) {
+        mRootView = rootView;
+    }
+
+    static WindowScrollObserver of(View view) {
+        View rootView = view.getRootView();
+        WindowScrollObserver observer = (WindowScrollObserver) rootView.getTag(R.id.fab_window_scroll_observer);
+        if (observer == null) {
+            observer = new WindowScrollObserver(rootView);
+            rootView.setTag(R.id.fab_window_scroll_observer, observer);
+            rootView.getViewTreeObserver().addOnScrollChangedListener(observer);
+        }
+        return observer;
+    }
+
+    void add(ViewScrollDetector detector) {
+        mDetectors = ArrayUtils.append(mDetectors, detector);
+    }
+
+    void remove(ViewScrollDetector detector) {
+        mDetectors = ArrayUtils.remove(mDetectors, detector);
+        if (mDetectors.length == 0) {
+            ViewTreeObserver viewTreeObserver = mRootView.getViewTreeObserver();
+            if (viewTreeObserver.isAlive()) {
+                viewTreeObserver.removeOnScrollChangedListener(this);
+            }
+            mRootView.setTag(R.id.fab_window_scroll_observer, null);
+        }
+    }
+
+    @Override
+    public void onScrollChanged() {
+        ViewScrollDetector[] detectors = mDetectors;
+        for (ViewScrollDetector detector : detectors) {
+            detector.onWindowScrollChanged();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.dyhpoon.fab;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays the same finger movement at different display refresh rates and checks that the
+ * resolver reaches the same decisions at roughly the same time, and that frame-aligned mode
+ * evaluates the deltas of a frame together.
+ */
+public class ScrollDirectionResolverRefreshRateTest {
+    private static final int[] REFRESH_RATES = {60, 90, 120};
+    // Decisions may differ by the granularity of the slowest event rate
+    private static final long TOLERANCE_MILLIS = 17;
+
+    @Test
+    public void steadyScrollIsDecidedAtTheSameTime() {
+        Gesture gesture = new Gesture().move(2f, 300);
+
+        Replay reference = replay(gesture, 60);
+        assertEquals(1, reference.mDecisions.size());
+        assertReplaysMatch(gesture, reference);
+    }
+
+    @Test
+    public void slowDriftIsIgnoredAtEveryRate() {
+        Gesture gesture = new Gesture().move(0.2f, 1000);
+
+        for (int hz : REFRESH_RATES) {
+            assertEquals(hz + " Hz", 0, replay(gesture, hz).mDecisions.size());
+        }
+    }
+
+    @Test
+    public void reversalsAreDecidedAtTheSameTime() {
+        Gesture gesture = new Gesture()
+                .move(2f, 200)
+                // Too short to reverse the direction
+                .move(-1f, 50)
+                .move(2f, 200)
+                .move(-2f, 300);
+
+        Replay reference = replay(gesture, 60);
+        assertEquals(2, reference.mDecisions.size());
+        assertEquals(2, reference.mSuppressedCount);
+        assertReplaysMatch(gesture, reference);
+    }
+
+    @Test
+    public void predictedFlingIsDecidedAtTheSameTime() {
+        Gesture gesture = new Gesture().move(1.5f, 60).move(0f, 200);
+
+        Replay reference = replay(gesture, 60, 0.01f);
+        assertEquals(1, reference.mDecisions.size());
+        assertReplaysMatch(gesture, reference, 0.01f);
+    }
+
+    @Test
+    public void deltasWithinOneFrameAreCoalesced() {
+        Replay replay = new Replay();
+        ManualFrames frames = new ManualFrames();
+        ScrollDirectionResolver resolver = configure(new ScrollDirectionResolver(replay, frames), 0f);
+        resolver.setFrameAligned(true);
+
+        // A 240 Hz touch screen delivers four events per 60 Hz frame
+        for (int frame = 1; frame <= 2; frame++) {
+            long frameTime = Math.round(frame * 1000.0 / 60);
+            for (int event = 3; event >= 0; event--) {
+                resolver.onScroll(10, frameTime - event * 4);
+            }
+            assertEquals(frame, frames.mScheduleCount);
+            frames.runFrame(frameTime);
+        }
+
+        // The first frame only provides the first velocity sample, every event evaluated on
+        // its own would have reported the direction several times
+        assertEquals(1, replay.mReportCount);
+        assertEquals(Collections.singletonList("up"), replay.mDecisions);
+    }
+
+    @Test
+    public void disablingFrameAlignmentEvaluatesThePendingDelta() {
+        Replay replay = new Replay();
+        ManualFrames frames = new ManualFrames();
+        ScrollDirectionResolver resolver = configure(new ScrollDirectionResolver(replay, frames), 0f);
+        resolver.setFrameAligned(true);
+        resolver.onScroll(20, 10);
+        frames.runFrame(16);
+        resolver.onScroll(20, 30);
+
+        resolver.setFrameAligned(false);
+
+        assertEquals(1, frames.mCancelCount);
+        assertEquals(Collections.singletonList("up"), replay.mDecisions);
+    }
+
+    private static void assertReplaysMatch(Gesture gesture, Replay reference) {
+        assertReplaysMatch(gesture, reference, 0f);
+    }
+
+    private static void assertReplaysMatch(Gesture gesture, Replay reference, float deceleration) {
+        for (int hz : REFRESH_RATES) {
+            Replay replay = replay(gesture, hz, deceleration);
+            assertEquals(hz + " Hz", reference.mDecisions, replay.mDecisions);
+            assertEquals(hz + " Hz", reference.mSuppressedCount, replay.mSuppressedCount);
+            for (int i = 0; i < reference.mDecisionTimes.size(); i++) {
+                long difference = reference.mDecisionTimes.get(i) - replay.mDecisionTimes.get(i);
+                assertTrue(hz + " Hz, decision " + i + " off by " + difference + " ms",
+                        Math.abs(difference) <= TOLERANCE_MILLIS);
+            }
+        }
+    }
+
+    private static Replay replay(Gesture gesture, int hz) {
+        return replay(gesture, hz, 0f);
+    }
+
+    private static Replay replay(Gesture gesture, int hz, float deceleration) {
+        Replay replay = new Replay();
+        ScrollDirectionResolver resolver = configure(new ScrollDirectionResolver(replay), deceleration);
+
+        long previousTime = 0;
+        for (int frame = 1; ; frame++) {
+            long time = Math.round(frame * 1000.0 / hz);
+            if (time > gesture.mDuration) break;
+            int delta = Math.round(gesture.positionAt(time)) - Math.round(gesture.positionAt(previousTime));
+            previousTime = time;
+            replay.mNow = time;
+            resolver.onScroll(delta, time);
+        }
+        replay.mSuppressedCount = resolver.getSuppressedCount();
+        return replay;
+    }
+
+    private static ScrollDirectionResolver configure(ScrollDirectionResolver resolver, float deceleration) {
+        resolver.setScrollThreshold(24);
+        resolver.setVelocityThresholds(0.3f, deceleration);
+        resolver.setHysteresis(80, 100);
+        return resolver;
+    }
+
+    /**
+     * Delivers frames when the test asks for them.
+     */
+    private static class ManualFrames implements ScrollDirectionResolver.FrameScheduler {
+        ScrollDirectionResolver mResolver;
+        int mScheduleCount;
+        int mCancelCount;
+
+        @Override
+        public void schedule(ScrollDirectionResolver resolver) {
+            mResolver = resolver;
+            mScheduleCount++;
+        }
+
+        @Override
+        public void cancel(ScrollDirectionResolver resolver) {
+            mResolver = null;
+            mCancelCount++;
+        }
+
+        void runFrame(long frameTimeMillis) {
+            ScrollDirectionResolver resolver = mResolver;
+            mResolver = null;
+            resolver.onFrame(frameTimeMillis);
+        }
+    }
+
+    /**
+     * Finger movement made of segments of constant velocity, starting at time 0.
+     */
+    private static class Gesture {
+        final List<float[]> mSegments = new ArrayList<float[]>();
+        long mDuration;
+
+        Gesture move(float pixelsPerMilli, long durationMillis) {
+            mSegments.add(new float[]{pixelsPerMilli, durationMillis});
+            mDuration += durationMillis;
+            return this;
+        }
+
+        float positionAt(long time) {
+            float position = 0f;
+            long start = 0;
+            for (float[] segment : mSegments) {
+                long elapsed = Math.min(time - start, (long) segment[1]);
+                if (elapsed <= 0) break;
+                position += segment[0] * elapsed;
+                start += (long) segment[1];
+            }
+            return position;
+        }
+    }
+
+    /**
+     * Records the reported direction changes, repeated reports of the same direction are
+     * collapsed.
+     */
+    private static class Replay implements ScrollDirectionListener {
+        final List<String> mDecisions = new ArrayList<String>();
+        final List<Long> mDecisionTimes = new ArrayList<Long>();
+        int mReportCount;
+        int mSuppressedCount;
+        long mNow;
+
+        @Override
+        public void onScrollDown() {
+            record("down");
+        }
+
+        @Override
+        public void onScrollUp() {
+            record("up");
+        }
+
+        private void record(String decision) {
+            mReportCount++;
+            if (!mDecisions.isEmpty() && mDecisions.get(mDecisions.size() - 1).equals(decision)) {
+                return;
+            }
+            mDecisions.add(decision);
+            mDecisionTimes.add(mNow);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.dyhpoon.fab;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ScrollDirectionResolverTest {
+    private static final int FRAME_MILLIS = 16;
+
+    private RecordingListener mListener;
+    private ScrollDirectionResolver mResolver;
+    private long mTime;
+
+    @Before
+    public void setUp() {
+        mListener = new RecordingListener();
+        mResolver = new ScrollDirectionResolver(mListener);
+        mResolver.setScrollThreshold(10);
+        mResolver.setHysteresis(100, 0);
+        mTime = 1000;
+    }
+
+    @Test
+    public void rejectedReversalIsCountedOnce() {
+        scroll(20, 5);
+        assertEquals(1, mResolver.getDirectionChangeCount());
+
+        // 60 px against the direction, below the reverse distance, over several events
+        scroll(-20, 3);
+
+        assertEquals(1, mResolver.getSuppressedCount());
+        assertEquals(1, mResolver.getDirectionChangeCount());
+    }
+
+    @Test
+    public void everyRejectedReversalIsCounted() {
+        scroll(20, 5);
+        scroll(-20, 3);
+        scroll(20, 2);
+        scroll(-20, 3);
+
+        assertEquals(2, mResolver.getSuppressedCount());
+    }
+
+    @Test
+    public void acceptedReversalIsNotCounted() {
+        scroll(20, 5);
+        // Rejected until 100 px have been scrolled against the direction, then accepted
+        scroll(-20, 6);
+
+        assertEquals(1, mResolver.getSuppressedCount());
+        assertEquals(2, mResolver.getDirectionChangeCount());
+        assertEquals(RecordingListener.DOWN, mListener.last());
+    }
+
+    @Test
+    public void resetStartsANewAttempt() {
+        scroll(20, 5);
+        scroll(-20, 2);
+        mResolver.reset();
+        scroll(-20, 2);
+
+        assertEquals(2, mResolver.getSuppressedCount());
+    }
+
+    private void scroll(int delta, int events) {
+        for (int i = 0; i < events; i++) {
+            mTime += FRAME_MILLIS;
+            mResolver.onScroll(delta, mTime);
+        }
+    }
+
+    static class RecordingListener implements ScrollDirectionListener {
+        static final String UP = "up";
+        static final String DOWN = "down";
+
+        final List<String> mEvents = new ArrayList<String>();
+
+        @Override
+        public void onScrollDown() {
+            mEvents.add(DOWN);
+        }
+
+        @Override
+        public void onScrollUp() {
+            mEvents.add(UP);
+        }
+
+        String last() {
+            return mEvents.isEmpty() ? null : mEvents.get(mEvents.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.dyhpoon.fab;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScrollVelocityTrackerTest {
+    private static final float EPSILON = 0.001f;
+
+    private final ScrollVelocityTracker mTracker = new ScrollVelocityTracker();
+
+    @Test
+    public void singleSampleHasNoVelocity() {
+        assertFalse(mTracker.hasVelocity());
+
+        mTracker.addDelta(40, 1000);
+
+        assertFalse(mTracker.hasVelocity());
+        assertEquals(0f, mTracker.getVelocity(), EPSILON);
+    }
+
+    @Test
+    public void samplesWithTheSameTimestampHaveNoVelocity() {
+        mTracker.addDelta(10, 1000);
+        mTracker.addDelta(10, 1000);
+
+        assertFalse(mTracker.hasVelocity());
+    }
+
+    @Test
+    public void velocityIsMeasuredBetweenTimestamps() {
+        mTracker.addDelta(99, 1000);
+        mTracker.addDelta(20, 1010);
+        mTracker.addDelta(20, 1020);
+
+        assertTrue(mTracker.hasVelocity());
+        assertEquals(2f, mTracker.getVelocity(), EPSILON);
+    }
+
+    @Test
+    public void velocityDoesNotDependOnTheEventRate() {
+        ScrollVelocityTracker slow = new ScrollVelocityTracker();
+        ScrollVelocityTracker fast = new ScrollVelocityTracker();
+        for (int i = 0; i <= 6; i++) {
+            slow.addDelta(30, 1000 + i * 15);
+        }
+        for (int i = 0; i <= 12; i++) {
+            fast.addDelta(15, 1000 + i * 15 / 2);
+        }
+
+        assertEquals(2f, slow.getVelocity(), EPSILON);
+        assertEquals(slow.getVelocity(), fast.getVelocity(), EPSILON);
+    }
+
+    @Test
+    public void samplesBeyondTheHorizonAreIgnored() {
+        mTracker.addDelta(500, 1000);
+        mTracker.addDelta(10, 1500);
+
+        assertFalse(mTracker.hasVelocity());
+
+        mTracker.addDelta(10, 1510);
+
+        assertEquals(1f, mTracker.getVelocity(), EPSILON);
+    }
+
+    @Test
+    public void samplesBeforeAReversalAreIgnored() {
+        mTracker.addDelta(30, 1000);
+        mTracker.addDelta(30, 1010);
+        mTracker.addDelta(-10, 1020);
+
+        assertFalse(mTracker.hasVelocity());
+
+        mTracker.addDelta(-10, 1030);
+
+        assertEquals(-1f, mTracker.getVelocity(), EPSILON);
+    }
+
+    @Test
+    public void clearForgetsAllSamples() {
+        mTracker.addDelta(10, 1000);
+        mTracker.addDelta(10, 1010);
+        mTracker.clear();
+        mTracker.addDelta(10, 1020);
+
+        assertFalse(mTracker.hasVelocity());
+    }
+}
@@ -27,6 +27,7 @@ import android.widget.TextView;
 import com.dyhpoon.fab.FloatingActionButton;
 import com.dyhpoon.fab.FloatingActionsMenu;
 import com.dyhpoon.fab.ObservableScrollView;
+import com.dyhpoon.fab.ScrollCoordinator;
 import com.dyhpoon.fab.ScrollDirectionListener;
 
 public class MainActivity extends ActionBarActivity {
@@ -120,6 +121,7 @@ public class MainActivity extends ActionBarActivity {
     }
 
     public static class ListViewFragment extends Fragment {
+        private ScrollCoordinator.Binding mScrollBinding;
 
         @SuppressLint("InflateParams")
         @Override
@@ -132,7 +134,7 @@ public class MainActivity extends ActionBarActivity {
             list.setAdapter(listAdapter);
 
             FloatingActionsMenu menu = (FloatingActionsMenu) root.findViewById(R.id.floating_menu);
-            menu.attachToListView(list, new ScrollDirectionListener() {
+            mScrollBinding = menu.attachToListView(list, new ScrollDirectionListener() {
                 @Override
                 public void onScrollDown() {
                     Log.d("ListViewFragment", "onScrollDown()");
@@ -156,9 +158,17 @@ public class MainActivity extends ActionBarActivity {
 
             return root;
         }
+
+        @Override
+        public void onDestroyView() {
+            super.onDestroyView();
+            mScrollBinding.detach();
+        }
     }
 
     public static class RecyclerViewFragment extends Fragment {
+        private ScrollCoordinator.Binding mScrollBinding;
+
         @Override
         public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
             View root = inflater.inflate(R.layout.fragment_recyclerview, container, false);
@@ -174,13 +184,21 @@ public class MainActivity extends ActionBarActivity {
             recyclerView.setAdapter(adapter);
 
             FloatingActionButton fab = (FloatingActionButton) root.findViewById(R.id.fab);
-            fab.attachToRecyclerView(recyclerView);
+            mScrollBinding = fab.attachToRecyclerView(recyclerView);
 
             return root;
         }
+
+        @Override
+        public void onDestroyView() {
+            super.onDestroyView();
+            mScrollBinding.detach();
+        }
     }
 
     public static class ScrollViewFragment extends Fragment {
+        private ScrollCoordinator.Binding mScrollBinding;
+
         @Override
         public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
             View root = inflater.inflate(R.layout.fragment_scrollview, container, false);
@@ -201,9 +219,15 @@ public class MainActivity extends ActionBarActivity {
             }
 
             FloatingActionButton fab = (FloatingActionButton) root.findViewById(R.id.fab);
-            fab.attachToScrollView(scrollView);
+            mScrollBinding = fab.attachToScrollView(scrollView);
 
             return root;
         }
+
+        @Override
+        public void onDestroyView() {
+            super.onDestroyView();
+            mScrollBinding.detach();
+        }
     }
 }
\ No newline at end of file